@@ -0,0 +1,99 @@
+package org.helioviewer.jhv.timelines.band;
+
+import java.awt.Rectangle;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.helioviewer.jhv.time.TimeUtils;
+import org.helioviewer.jhv.timelines.draw.TimeAxis;
+import org.helioviewer.jhv.timelines.draw.YAxis;
+
+// Memory and redraw time of one year of a GOES XRS band at its one minute cadence:
+//   java -Djava.awt.headless=true -cp bin:lib/* org.helioviewer.jhv.timelines.band.BandCacheBenchmark
+// the synthetic flux is a random walk between 1e-8 and 1e-3 W/m^2, added one day at a time as downloaded
+public class BandCacheBenchmark {
+
+    private static final long CADENCE = 60 * 1000;
+    private static final int DAYS = 365;
+    private static final int RUNS = 50;
+    private static final Rectangle graphArea = new Rectangle(0, 0, 1000, 200);
+    private static final YAxis yAxis = new YAxis(1e-8, 1e-3, "W/m^2", true);
+
+    private static final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        long before = usedMemory();
+        long start = System.nanoTime();
+        BandCache cache = year();
+        long addTime = System.nanoTime() - start;
+        long stored = usedMemory() - before;
+
+        System.out.println(DAYS + " days at " + CADENCE / 1000 + "s cadence");
+        System.out.println("  add:    " + addTime / 1000000 + "ms, " + stored / 1024 + "KB");
+
+        long end = DAYS * TimeUtils.DAY_IN_MILLIS - 1;
+        redraw("  year:   ", cache, new TimeAxis(0, end));
+        redraw("  month:  ", cache, new TimeAxis(end / 2, end / 2 + 30 * TimeUtils.DAY_IN_MILLIS));
+        redraw("  day:    ", cache, new TimeAxis(end / 2, end / 2 + TimeUtils.DAY_IN_MILLIS));
+        System.out.println("  drawn:  " + (usedMemory() - before) / 1024 + "KB with the levels built");
+        Reference.reachabilityFence(cache);
+    }
+
+    private static BandCache year() {
+        BandCache cache = new BandCache(CADENCE);
+        Random random = new Random(42);
+        double log = -6;
+        int ticks = (int) (TimeUtils.DAY_IN_MILLIS / CADENCE);
+        float[] values = new float[ticks];
+        long[] dates = new long[ticks];
+        for (int day = 0; day < DAYS; day++) {
+            for (int i = 0; i < ticks; i++) {
+                log = Math.max(-8, Math.min(-3, log + 0.02 * random.nextGaussian()));
+                values[i] = (float) Math.pow(10, log);
+                dates[i] = (day * ticks + i) * CADENCE;
+            }
+            cache.addToCache(values, dates);
+        }
+        return cache;
+    }
+
+    // the first draw builds the levels, the following ones are steady redraws into the same polylines
+    private static void redraw(String label, BandCache cache, TimeAxis timeAxis) {
+        ArrayList<BandCache.GraphPolyline> lines = new ArrayList<>();
+        long start = System.nanoTime();
+        cache.createPolyLines(graphArea, timeAxis, yAxis, lines);
+        long first = System.nanoTime() - start;
+
+        long[] times = new long[RUNS];
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < RUNS; i++) {
+            start = System.nanoTime();
+            cache.createPolyLines(graphArea, timeAxis, yAxis, lines);
+            times[i] = System.nanoTime() - start;
+        }
+        allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocated;
+
+        int points = 0;
+        for (BandCache.GraphPolyline line : lines)
+            points += line.length;
+        System.out.println(label + "first " + first / 1e6 + "ms, then " + median(times) + "ms median, " + allocated / RUNS + " bytes allocated per redraw, " +
+                           lines.size() + " lines of " + points + " points");
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double median(long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+
+}
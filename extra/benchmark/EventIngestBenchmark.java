@@ -0,0 +1,112 @@
+package org.helioviewer.jhv.database;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.helioviewer.jhv.JHVDirectory;
+import org.helioviewer.jhv.base.FileUtils;
+import org.helioviewer.jhv.base.GZIPUtils;
+import org.helioviewer.jhv.base.Pair;
+import org.helioviewer.jhv.data.event.SWEKGroup;
+import org.helioviewer.jhv.data.event.SWEKSupplier;
+import org.helioviewer.jhv.plugins.swek.config.SWEKConfigurationManager;
+
+// Times the ingestion of 100k synthetic events in pages, first as new events, then as updates of the same ones:
+//   java -Djava.awt.headless=true -cp bin:resources:lib/* org.helioviewer.jhv.database.EventIngestBenchmark [group]
+// the group defaults to Flare; the database is created in a temporary home directory, removed at the end
+public class EventIngestBenchmark {
+
+    private static final int EVENTS = 100000;
+    private static final int PAGE = 1000;
+    private static final long CADENCE = 10 * 60 * 1000;
+
+    public static void main(String[] args) throws Exception {
+        File home = Files.createTempDirectory("jhv").toFile();
+        System.setProperty("user.home", home.getPath());
+        JHVDirectory.EVENTS.getFile().mkdirs();
+
+        String name = args.length == 0 ? "Flare" : args[0];
+        SWEKSupplier supplier = null;
+        for (SWEKGroup group : SWEKConfigurationManager.loadConfig()) {
+            if (group.getName().equals(name))
+                supplier = group.getSuppliers().get(0);
+        }
+        if (supplier == null) {
+            System.out.println("No event group " + name);
+            System.exit(1);
+        }
+
+        try {
+            System.out.println(EVENTS + " " + name + " events from " + supplier.getSupplierName() + " in pages of " + PAGE);
+            ingest("  insert:", supplier, 0);
+            ingest("  update:", supplier, 1);
+            System.out.println("  database: " + new File(JHVDirectory.EVENTS.getPath() + "events.db").length() / 1024 + "KB");
+        } finally {
+            FileUtils.deleteDir(home);
+        }
+        System.exit(0);
+    }
+
+    private static void ingest(String label, SWEKSupplier supplier, int version) throws Exception {
+        HashMap<String, String> dbFields = supplier.getGroup().getAllDatabaseFields();
+
+        long time = 0, assocTime = 0;
+        for (int page = 0; page < EVENTS / PAGE; page++) {
+            ArrayList<EventDatabase.Event2Db> events = new ArrayList<>(PAGE);
+            ArrayList<Pair<String, String>> assocs = new ArrayList<>();
+            for (int i = 0; i < PAGE; i++) {
+                int n = page * PAGE + i;
+                events.add(event(n, version, dbFields));
+                if (i % 2 == 1) // each second event follows the one before
+                    assocs.add(new Pair<>(uid(n - 1), uid(n)));
+            }
+
+            long start = System.nanoTime();
+            EventDatabase.dump_event2db(events, supplier);
+            long assocStart = System.nanoTime();
+            EventDatabase.dump_association2db(assocs.toArray(new Pair[0]));
+            time += System.nanoTime() - start;
+            assocTime += System.nanoTime() - assocStart;
+        }
+        System.out.println(label + " " + time / 1000000 + "ms, " + (long) (EVENTS / (time / 1e9)) + " events/s, of which associations " + assocTime / 1000000 + "ms");
+    }
+
+    static String uid(int n) {
+        return "ivo://helio-informatics.org/benchmark_" + n;
+    }
+
+    static EventDatabase.Event2Db event(int n, int version, HashMap<String, String> dbFields) throws Exception {
+        long start = n * CADENCE;
+        long end = start + 3 * CADENCE;
+        String uid = uid(n);
+
+        ArrayList<JHVDatabaseParam> params = new ArrayList<>();
+        StringBuilder json = new StringBuilder("{\"kb_archivid\":\"").append(uid).append("\",\"version\":").append(version);
+        for (Map.Entry<String, String> entry : dbFields.entrySet()) {
+            String field = entry.getKey();
+            switch (entry.getValue()) {
+                case JHVDatabaseParam.DBINTTYPE:
+                    params.add(new JHVDatabaseParam(JHVDatabaseParam.DBINTTYPE, n % 100, field));
+                    json.append(",\"").append(field).append("\":").append(n % 100);
+                    break;
+                case JHVDatabaseParam.DBSTRINGTYPE:
+                    params.add(new JHVDatabaseParam(JHVDatabaseParam.DBSTRINGTYPE, "S" + n % 7, field));
+                    json.append(",\"").append(field).append("\":\"S").append(n % 7).append('"');
+                    break;
+                case JHVDatabaseParam.DBDOUBLETYPE:
+                    params.add(new JHVDatabaseParam(JHVDatabaseParam.DBDOUBLETYPE, 1e-6 * (n % 1000), field));
+                    json.append(",\"").append(field).append("\":").append(1e-6 * (n % 1000));
+                    break;
+                default:
+                    break;
+            }
+        }
+        byte[] data = json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+        return new EventDatabase.Event2Db(GZIPUtils.compress(data, 0, data.length), start, end, start + version, uid, params);
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.helioviewer.jhv.database;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.helioviewer.jhv.JHVDirectory;
+import org.helioviewer.jhv.base.FileUtils;
+import org.helioviewer.jhv.base.Pair;
+import org.helioviewer.jhv.data.event.SWEKGroup;
+import org.helioviewer.jhv.data.event.SWEKSupplier;
+import org.helioviewer.jhv.plugins.swek.config.SWEKConfigurationManager;
+import org.helioviewer.jhv.time.TimeUtils;
+
+// Query latency percentiles of one week event ranges, with the database idle and while pages are ingested:
+//   java -Djava.awt.headless=true -cp bin:resources:lib/* org.helioviewer.jhv.database.EventQueryBenchmark
+// uses the synthetic Flare events of EventIngestBenchmark in a temporary home directory, removed at the end
+public class EventQueryBenchmark {
+
+    private static final int PREFILL = 20000;
+    private static final int INGEST = 50000;
+    private static final int PAGE = 1000;
+    private static final int IDLE_QUERIES = 500;
+    private static final long CADENCE = 10 * 60 * 1000; // as EventIngestBenchmark
+    private static final long WINDOW = 7 * TimeUtils.DAY_IN_MILLIS;
+
+    public static void main(String[] args) throws Exception {
+        File home = Files.createTempDirectory("jhv").toFile();
+        System.setProperty("user.home", home.getPath());
+        JHVDirectory.EVENTS.getFile().mkdirs();
+
+        SWEKSupplier supplier = null;
+        for (SWEKGroup group : SWEKConfigurationManager.loadConfig()) {
+            if (group.getName().equals("Flare"))
+                supplier = group.getSuppliers().get(0);
+        }
+
+        try {
+            HashMap<String, String> dbFields = supplier.getGroup().getAllDatabaseFields();
+            for (int n = 0; n < PREFILL; n += PAGE)
+                page(supplier, dbFields, n);
+
+            Random random = new Random(42);
+            long[] idle = new long[IDLE_QUERIES];
+            for (int i = 0; i < idle.length; i++)
+                idle[i] = query(supplier, random);
+            report("idle:          ", idle);
+
+            SWEKSupplier type = supplier;
+            Thread ingest = new Thread(() -> {
+                try {
+                    for (int n = PREFILL; n < PREFILL + INGEST; n += PAGE)
+                        page(type, dbFields, n);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+            long start = System.nanoTime();
+            ingest.start();
+            ArrayList<Long> busy = new ArrayList<>();
+            while (ingest.isAlive())
+                busy.add(query(supplier, random));
+            long ingestTime = System.nanoTime() - start;
+            report("during ingest: ", busy.stream().mapToLong(Long::longValue).toArray());
+            System.out.println("  ingest of " + INGEST + " events: " + ingestTime / 1000000 + "ms");
+        } finally {
+            FileUtils.deleteDir(home);
+        }
+        System.exit(0);
+    }
+
+    private static void page(SWEKSupplier supplier, HashMap<String, String> dbFields, int from) throws Exception {
+        ArrayList<EventDatabase.Event2Db> events = new ArrayList<>(PAGE);
+        ArrayList<Pair<String, String>> assocs = new ArrayList<>();
+        for (int n = from; n < from + PAGE; n++) {
+            events.add(EventIngestBenchmark.event(n, 0, dbFields));
+            if (n % 2 == 1)
+                assocs.add(new Pair<>(EventIngestBenchmark.uid(n - 1), EventIngestBenchmark.uid(n)));
+        }
+        EventDatabase.dump_event2db(events, supplier);
+        EventDatabase.dump_association2db(assocs.toArray(new Pair[0]));
+    }
+
+    // a week within the prefilled events
+    private static long query(SWEKSupplier supplier, Random random) {
+        long start = (long) (random.nextDouble() * (PREFILL * CADENCE - WINDOW));
+        long time = System.nanoTime();
+        EventDatabase.events2Program(start, start + WINDOW, supplier, new ArrayList<>());
+        return System.nanoTime() - time;
+    }
+
+    private static void report(String label, long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        System.out.println("  " + label + sorted.length + " queries, p50 " + percentile(sorted, 50) + "ms, p90 " + percentile(sorted, 90) +
+                           "ms, p99 " + percentile(sorted, 99) + "ms, max " + sorted[sorted.length - 1] / 1e6 + "ms");
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)] / 1e6;
+    }
+
+}
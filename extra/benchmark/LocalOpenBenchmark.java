@@ -0,0 +1,137 @@
+package org.helioviewer.jhv.view.jp2view.cache;
+
+import java.io.File;
+import java.util.Arrays;
+
+import kdu_jni.Jp2_channels;
+import kdu_jni.Jp2_family_tgt;
+import kdu_jni.Jp2_output_box;
+import kdu_jni.Jpx_codestream_target;
+import kdu_jni.Jpx_layer_target;
+import kdu_jni.Jpx_target;
+import kdu_jni.Kdu_codestream;
+import kdu_jni.Kdu_global;
+import kdu_jni.Kdu_stripe_compressor;
+import kdu_jni.Siz_params;
+
+import org.helioviewer.jhv.view.jp2view.image.ResolutionSet;
+import org.helioviewer.jhv.view.jp2view.kakadu.KakaduEngine;
+import org.helioviewer.jhv.view.jp2view.kakadu.KakaduHelper;
+
+// Times opening local JPX files of 10, 1000 and 5000 layers against the former sweep of all headers:
+//   java -cp bin:lib/* org.helioviewer.jhv.view.jp2view.cache.LocalOpenBenchmark [natives dir]
+// the natives dir defaults to resources/natives/linux-amd64, the synthetic files are removed at the end
+public class LocalOpenBenchmark {
+
+    private static final int[] LAYERS = { 10, 1000, 5000 };
+    private static final int SIZE = 128;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        String natives = args.length == 0 ? "resources/natives/linux-amd64" : args[0];
+        for (String lib : new String[] { "kdu_v77R", "kdu_a77R", "kdu_jni" })
+            System.load(new File(natives, System.mapLibraryName(lib)).getAbsolutePath());
+
+        for (int layers : LAYERS) {
+            File file = File.createTempFile("open", ".jpx");
+            try {
+                synthetic(file, layers);
+                run(file, layers);
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    private static void run(File file, int layers) throws Exception {
+        long[] open = new long[RUNS];
+        long[] sweep = new long[RUNS];
+        long[] all = new long[RUNS];
+        int distinct = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            KakaduEngine engine = new KakaduEngine(null, file.toURI());
+            int[] count = new int[1];
+            engine.getJpxSource().Count_compositing_layers(count);
+            CacheStatusLocal status = new CacheStatusLocal(engine, count[0] - 1);
+            open[i] = System.nanoTime() - start;
+
+            // what the constructor did before, one header read per frame
+            start = System.nanoTime();
+            for (int frame = 0; frame < count[0]; frame++)
+                KakaduHelper.getResolutionSet(engine.getCompositor(), frame);
+            sweep[i] = System.nanoTime() - start;
+
+            // every frame through the cache status, once
+            start = System.nanoTime();
+            ResolutionSet[] sets = new ResolutionSet[count[0]];
+            for (int frame = 0; frame < count[0]; frame++)
+                sets[frame] = status.getResolutionSet(frame);
+            all[i] = System.nanoTime() - start;
+            distinct = (int) Arrays.stream(sets).distinct().count();
+
+            engine.destroy();
+        }
+
+        System.out.println(layers + " layers, " + file.length() / 1024 + "KB");
+        System.out.println("  open:         " + median(open) + "ms median");
+        System.out.println("  former sweep: " + median(sweep) + "ms median");
+        System.out.println("  all frames:   " + median(all) + "ms median, " + distinct + " distinct resolution sets");
+    }
+
+    // one component 8 bit codestream per compositing layer
+    private static void synthetic(File file, int layers) throws Exception {
+        Siz_params siz = new Siz_params();
+        siz.Set(Kdu_global.Scomponents, 0, 0, 1);
+        siz.Set(Kdu_global.Sdims, 0, 0, SIZE);
+        siz.Set(Kdu_global.Sdims, 0, 1, SIZE);
+        siz.Set(Kdu_global.Sprecision, 0, 0, 8);
+        siz.Set(Kdu_global.Ssigned, 0, 0, false);
+        siz.Finalize();
+
+        Jp2_family_tgt tgt = new Jp2_family_tgt();
+        tgt.Open(file.getPath());
+        Jpx_target jpx = new Jpx_target();
+        jpx.Open(tgt);
+
+        Jpx_codestream_target[] streams = new Jpx_codestream_target[layers];
+        for (int i = 0; i < layers; i++) {
+            streams[i] = jpx.Add_codestream();
+            streams[i].Access_dimensions().Init(siz);
+            Jpx_layer_target layer = jpx.Add_layer();
+            layer.Add_colour().Init(Kdu_global.JP2_sLUM_SPACE);
+            Jp2_channels channels = layer.Access_channels();
+            channels.Init(1);
+            channels.Set_colour_mapping(0, 0, -1, i);
+        }
+        jpx.Write_headers();
+
+        byte[] pixels = new byte[SIZE * SIZE];
+        for (int i = 0; i < layers; i++) {
+            for (int j = 0; j < pixels.length; j++)
+                pixels[j] = (byte) (j / SIZE + j % SIZE + i);
+
+            Jp2_output_box box = streams[i].Open_stream();
+            Kdu_codestream codestream = new Kdu_codestream();
+            codestream.Create(siz, box, null);
+            codestream.Access_siz().Parse_string("Clevels=5");
+            codestream.Access_siz().Finalize_all();
+
+            Kdu_stripe_compressor compressor = new Kdu_stripe_compressor();
+            compressor.Start(codestream);
+            compressor.Push_stripe(pixels, new int[] { SIZE });
+            compressor.Finish();
+            codestream.Destroy();
+            box.Close();
+        }
+        jpx.Close();
+        tgt.Close();
+    }
+
+    private static double median(long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.helioviewer.jhv.plugins.pfss.data;
+
+import java.io.File;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import org.helioviewer.jhv.plugins.pfss.PfssSettings;
+import org.helioviewer.jhv.time.JHVDate;
+
+import nom.tam.fits.BinaryTableHDU;
+import nom.tam.fits.Fits;
+
+// Times the geometry of full resolution snapshots:
+//   java -cp bin:lib/* org.helioviewer.jhv.plugins.pfss.data.PfssDataBenchmark [pfss.fits ...]
+// without arguments, a synthetic snapshot of 16384 lines is used
+public class PfssDataBenchmark {
+
+    private static final int RUNS = 20;
+    private static final int SYNTHETIC_LINES = 16384;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            run("synthetic", synthetic(SYNTHETIC_LINES));
+        } else {
+            for (String arg : args) {
+                try (Fits fits = new Fits(new File(arg))) {
+                    BinaryTableHDU bhdu = (BinaryTableHDU) fits.read()[1];
+                    short[][] lines = { (short[]) bhdu.getColumn("FIELDLINEx"), (short[]) bhdu.getColumn("FIELDLINEy"),
+                                        (short[]) bhdu.getColumn("FIELDLINEz"), (short[]) bhdu.getColumn("FIELDLINEs") };
+                    run(arg, lines);
+                }
+            }
+        }
+    }
+
+    private static short[][] synthetic(int numberOfLines) {
+        int numberOfPoints = numberOfLines * PfssSettings.POINTS_PER_LINE;
+        short[][] lines = new short[4][numberOfPoints];
+        for (int i = 0; i < numberOfPoints; i++) {
+            double t = i / (double) PfssSettings.POINTS_PER_LINE;
+            lines[0][i] = (short) (Math.cos(t) * 10000);
+            lines[1][i] = (short) (Math.sin(t) * 10000);
+            lines[2][i] = (short) (Math.sin(t / 3) * 10000);
+            lines[3][i] = (short) (i % 65536 - 32768);
+        }
+        return lines;
+    }
+
+    private static void run(String name, short[][] lines) {
+        long[] geometry = new long[RUNS];
+        long[] recolor = new long[RUNS];
+        PfssData data = null;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            data = new PfssData(new JHVDate(0), ShortBuffer.wrap(lines[0]), ShortBuffer.wrap(lines[1]), ShortBuffer.wrap(lines[2]), ShortBuffer.wrap(lines[3]), null, 0);
+            geometry[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            data.getColors(PfssSettings.MAX_DETAIL, true); // switch to fixed colors
+            recolor[i] = System.nanoTime() - start;
+        }
+
+        System.out.println(name + ": " + lines[0].length / PfssSettings.POINTS_PER_LINE + " lines, " + data.getMemorySize() / 1024 + "KB");
+        System.out.println("  geometry: " + median(geometry) + "ms median, " + min(geometry) + "ms min");
+        System.out.println("  recolor:  " + median(recolor) + "ms median, " + min(recolor) + "ms min");
+    }
+
+    private static double median(long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+
+    private static double min(long[] times) {
+        return Arrays.stream(times).min().getAsLong() / 1e6;
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.helioviewer.jhv.plugins.pfss.data;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.helioviewer.jhv.JHVDirectory;
+import org.helioviewer.jhv.Settings;
+import org.helioviewer.jhv.plugins.pfss.PfssSettings;
+import org.helioviewer.jhv.time.TimeUtils;
+
+import nom.tam.fits.BasicHDU;
+import nom.tam.fits.Fits;
+import nom.tam.fits.Header;
+
+// Times opening a month of snapshots from FITS against mapping them from the disk cache:
+//   java -cp bin:resources:lib/* org.helioviewer.jhv.plugins.pfss.data.PfssLoaderBenchmark [pfss.fits ...]
+// without arguments, a month of synthetic snapshots every six hours is generated;
+// the snapshots are written to the plugin cache, those written are removed at the end
+public class PfssLoaderBenchmark {
+
+    private static final int SYNTHETIC_SNAPSHOTS = 30 * 4;
+    private static final int SYNTHETIC_LINES = 16384;
+    private static final int BUFSIZ = 65536;
+
+    public static void main(String[] args) throws Exception {
+        Settings.getSingletonInstance().load();
+        JHVDirectory.PLUGINSCACHE.getFile().mkdirs();
+
+        ArrayList<File> fitsFiles = new ArrayList<>();
+        File tmpDir = null;
+        if (args.length == 0) {
+            tmpDir = Files.createTempDirectory("pfss").toFile();
+            for (int i = 0; i < SYNTHETIC_SNAPSHOTS; i++)
+                fitsFiles.add(synthetic(tmpDir, i));
+        } else {
+            for (String arg : args)
+                fitsFiles.add(new File(arg));
+        }
+
+        ArrayList<String> urls = new ArrayList<>();
+        long fitsTime = 0;
+        for (int i = 0; i < fitsFiles.size(); i++) {
+            File file = fitsFiles.get(i);
+            long start = System.nanoTime();
+            PfssData data;
+            try (Fits fits = new Fits(new BufferedInputStream(new FileInputStream(file), BUFSIZ))) {
+                data = PfssDataLoader.getPfssData(fits, i);
+            }
+            fitsTime += System.nanoTime() - start;
+
+            String url = "benchmark/" + file.getName();
+            PfssDiskCache.write(url, data);
+            urls.add(url);
+        }
+
+        long mappedTime = 0;
+        int mapped = 0;
+        for (int i = 0; i < urls.size(); i++) {
+            long start = System.nanoTime();
+            PfssData data = PfssDiskCache.read(urls.get(i), i);
+            mappedTime += System.nanoTime() - start;
+            if (data != null)
+                mapped++;
+        }
+
+        System.out.println(fitsFiles.size() + " snapshots, " + mapped + " mapped from the disk cache");
+        System.out.println("  FITS:   " + fitsTime / 1000000 + "ms total, " + fitsTime / 1000000 / fitsFiles.size() + "ms per snapshot");
+        System.out.println("  mapped: " + mappedTime / 1000000 + "ms total, " + mappedTime / 1000000 / fitsFiles.size() + "ms per snapshot");
+
+        for (String url : urls)
+            new File(JHVDirectory.PLUGINSCACHE.getPath() + url.replace('/', '_') + ".pfss").delete();
+        if (tmpDir != null) {
+            for (File file : fitsFiles)
+                file.delete();
+            tmpDir.delete();
+        }
+    }
+
+    private static File synthetic(File dir, int index) throws Exception {
+        int numberOfPoints = SYNTHETIC_LINES * PfssSettings.POINTS_PER_LINE;
+        short[][] lines = new short[4][numberOfPoints];
+        for (int i = 0; i < numberOfPoints; i++) {
+            double t = i / (double) PfssSettings.POINTS_PER_LINE + index;
+            lines[0][i] = (short) (Math.cos(t) * 10000);
+            lines[1][i] = (short) (Math.sin(t) * 10000);
+            lines[2][i] = (short) (Math.sin(t / 3) * 10000);
+            lines[3][i] = (short) (i % 65536 - 32768);
+        }
+
+        BasicHDU<?> hdu = Fits.makeHDU(new Object[] { lines[0], lines[1], lines[2], lines[3] });
+        Header header = hdu.getHeader();
+        header.addValue("TTYPE1", "FIELDLINEx", null);
+        header.addValue("TTYPE2", "FIELDLINEy", null);
+        header.addValue("TTYPE3", "FIELDLINEz", null);
+        header.addValue("TTYPE4", "FIELDLINEs", null);
+        header.addValue("DATE-OBS", TimeUtils.format(index * 6 * 60 * 60 * 1000L), null);
+
+        File file = new File(dir, "pfss_" + index + ".fits");
+        try (Fits fits = new Fits()) {
+            fits.addHDU(hdu);
+            fits.write(file);
+        }
+        return file;
+    }
+
+}
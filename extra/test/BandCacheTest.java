@@ -0,0 +1,107 @@
+package org.helioviewer.jhv.timelines.band;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.helioviewer.jhv.timelines.draw.TimeAxis;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class BandCacheTest {
+
+    private static final long CADENCE = 60 * 1000;
+    private static final long CHUNK = 11520 * CADENCE;
+    private static final float VALUE = 1e-6f;
+
+    // one hour of data at the start of the chunk and one four hours later, the compacted buckets in between are empty
+    private static BandCache cacheWithGap() {
+        BandCache cache = new BandCache(CADENCE);
+        add(cache, 0);
+        add(cache, 1024);
+        return cache;
+    }
+
+    private static void add(BandCache cache, int fromTick) {
+        float[] values = new float[60];
+        long[] dates = new long[60];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = VALUE;
+            dates[i] = (fromTick + i) * CADENCE;
+        }
+        cache.addToCache(values, dates);
+    }
+
+    private static TimeAxis wideAxis() {
+        return new TimeAxis(0, 300 * CHUNK - 1);
+    }
+
+    @Test
+    public void testBoundsFull() {
+        BandCache cache = cacheWithGap();
+        float[] bounds = cache.getBounds(new TimeAxis(0, CHUNK - 1));
+        assertEquals(VALUE, bounds[0], 0);
+        assertEquals(VALUE, bounds[1], 0);
+    }
+
+    @Test
+    public void testBoundsCompacted() {
+        BandCache cache = cacheWithGap();
+        TimeAxis axis = wideAxis();
+        cache.evict(axis);
+
+        float[] bounds = cache.getBounds(axis);
+        assertEquals(VALUE, bounds[0], 0);
+        assertEquals(VALUE, bounds[1], 0);
+    }
+
+    @Test
+    public void testValueCompacted() {
+        BandCache cache = cacheWithGap();
+        cache.evict(wideAxis());
+
+        assertEquals(VALUE, cache.getValue(30 * CADENCE), 0);
+        assertEquals(Float.MIN_VALUE, cache.getValue(600 * CADENCE), 0); // in the gap
+        assertEquals(VALUE, cache.getValue(1050 * CADENCE), 0);
+    }
+
+    @Test
+    public void testAddToCompacted() {
+        BandCache cache = cacheWithGap();
+        cache.evict(wideAxis());
+        add(cache, 600);
+
+        assertEquals(VALUE, cache.getValue(600 * CADENCE), 0);
+        float[] bounds = cache.getBounds(wideAxis());
+        assertEquals(VALUE, bounds[0], 0);
+        assertEquals(VALUE, bounds[1], 0);
+    }
+
+    @Test
+    public void testSerializeCompacted() {
+        BandCache cache = cacheWithGap();
+        cache.evict(wideAxis());
+
+        JSONObject jo = new JSONObject();
+        cache.serialize(jo, 1);
+        JSONArray data = jo.getJSONArray("data");
+        int present = 0;
+        for (int i = 0; i < data.length(); i++) {
+            float v = (float) data.getJSONArray(i).getDouble(1);
+            assertTrue(v == VALUE || v == Float.MIN_VALUE);
+            if (v == VALUE)
+                present++;
+        }
+        assertEquals(2, present);
+    }
+
+    @Test
+    public void testUncompactedDropped() {
+        BandCache cache = cacheWithGap();
+        cache.evict(wideAxis());
+
+        assertEquals(1, cache.evict(new TimeAxis(0, CHUNK - 1)).size());
+        assertEquals(Float.MIN_VALUE, cache.getValue(30 * CADENCE), 0);
+    }
+
+}
@@ -0,0 +1,150 @@
+package org.helioviewer.jhv.plugins.pfss.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+import org.helioviewer.jhv.plugins.pfss.PfssSettings;
+import org.helioviewer.jhv.time.JHVDate;
+import org.junit.Test;
+
+public class PfssCacheTest {
+
+    private static final int LINES = 18;
+    private static final long SIZE = snapshot(0).getMemorySize();
+
+    private final ArrayList<Long> requested = new ArrayList<>();
+
+    private static PfssData snapshot(long time) {
+        int points = LINES * PfssSettings.POINTS_PER_LINE;
+        ShortBuffer[] lines = new ShortBuffer[4];
+        for (int i = 0; i < lines.length; i++) {
+            short[] values = new short[points];
+            for (int j = 0; j < points; j++)
+                values[j] = (short) (j * (i + 1));
+            lines[i] = ShortBuffer.wrap(values);
+        }
+        return new PfssData(new JHVDate(time), lines[0], lines[1], lines[2], lines[3], null, time);
+    }
+
+    private PfssCache cache(int snapshots, long... times) {
+        PfssCache cache = new PfssCache(snapshots * SIZE + SIZE / 2, (url, time) -> requested.add(time));
+        TreeMap<Long, String> catalogue = new TreeMap<>();
+        for (long time : times)
+            catalogue.put(time, "pfss_" + time + ".fits");
+        cache.addCatalogue(catalogue);
+        return cache;
+    }
+
+    @Test
+    public void testNearest() {
+        PfssCache cache = cache(8, 100, 200, 300);
+        PfssData d100 = snapshot(100), d200 = snapshot(200), d300 = snapshot(300);
+        cache.addData(d100);
+        cache.addData(d200);
+        cache.addData(d300);
+
+        assertSame(d100, cache.getData(0));
+        assertSame(d100, cache.getData(140));
+        assertSame(d200, cache.getData(150)); // halfway goes to the later one
+        assertSame(d200, cache.getData(160));
+        assertSame(d300, cache.getData(260));
+        assertSame(d300, cache.getData(1000));
+    }
+
+    @Test
+    public void testNearestLoaded() {
+        PfssCache cache = cache(8, 100, 200, 300);
+        PfssData d300 = snapshot(300);
+        cache.addData(d300);
+
+        assertSame(d300, cache.getData(100));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        PfssCache cache = cache(2, 100, 200, 300);
+        PfssData d100 = snapshot(100), d200 = snapshot(200), d300 = snapshot(300);
+        cache.addData(d100);
+        cache.addData(d200);
+        assertSame(d100, cache.getData(100)); // 200 is now the least recently used
+
+        cache.addData(d300);
+        assertSame(d100, cache.getData(100));
+        assertSame(d300, cache.getData(300));
+        assertNotSame(d200, cache.getData(200));
+    }
+
+    @Test
+    public void testKeepsNewestOverBudget() {
+        PfssCache cache = cache(0, 100, 200);
+        PfssData d100 = snapshot(100), d200 = snapshot(200);
+        cache.addData(d100);
+        cache.addData(d200);
+
+        assertSame(d200, cache.getData(100));
+    }
+
+    @Test
+    public void testStaleDataIgnored() {
+        PfssCache cache = cache(8, 100);
+        assertFalse(cache.addData(snapshot(200)));
+        assertNull(cache.getData(200));
+
+        cache.clear();
+        assertFalse(cache.addData(snapshot(100)));
+        assertNull(cache.getData(100));
+    }
+
+    @Test
+    public void testDisplayNearest() {
+        PfssCache cache = cache(8, 100, 200, 300);
+        assertFalse(cache.addData(snapshot(100))); // nothing requested yet
+
+        cache.getData(190);
+        assertFalse(cache.addData(snapshot(100)));
+        assertTrue(cache.addData(snapshot(200)));
+    }
+
+    @Test
+    public void testPrefetchDirection() {
+        long[] times = new long[20];
+        for (int i = 0; i < times.length; i++)
+            times[i] = 100 * i;
+        PfssCache cache = cache(8, times);
+
+        cache.getData(500);
+        assertEquals(8, requested.size());
+        assertEquals(500, (long) requested.get(0));
+        assertEquals(1200, (long) requested.get(7));
+
+        requested.clear();
+        cache.getData(1000); // forward, 1000 to 1200 are loading already
+        assertEquals(1300, (long) requested.get(0));
+
+        requested.clear();
+        cache.getData(400); // backward
+        assertEquals(400, (long) requested.get(0));
+        assertEquals(0, (long) requested.get(requested.size() - 1));
+    }
+
+    @Test
+    public void testMappedLinesNotCounted() {
+        int points = LINES * PfssSettings.POINTS_PER_LINE;
+        ShortBuffer[] lines = new ShortBuffer[4];
+        for (int i = 0; i < lines.length; i++)
+            lines[i] = ByteBuffer.allocateDirect(2 * points).asShortBuffer();
+        PfssData mapped = new PfssData(new JHVDate(0), lines[0], lines[1], lines[2], lines[3], new byte[LINES], 0);
+
+        assertEquals(SIZE - 2L * 4 * points, mapped.getMemorySize());
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.helioviewer.jhv.data.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import org.helioviewer.jhv.JHVDirectory;
+import org.helioviewer.jhv.Settings;
+import org.helioviewer.jhv.base.FileUtils;
+import org.helioviewer.jhv.database.EventDatabase;
+import org.helioviewer.jhv.plugins.swek.config.SWEKConfigurationManager;
+import org.helioviewer.jhv.plugins.swek.sources.hek.HEKDownloader;
+import org.helioviewer.jhv.time.TimeUtils;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+// pages of synthetic Flare events served by a local mock of the HEK, each answer delayed like a round trip;
+// the event database lives in a temporary home directory
+public class SWEKDownloaderTest {
+
+    private static final int PAGES = 10;
+    private static final int PAGE_EVENTS = 100;
+    private static final int DELAY = 100;
+    private static final long CADENCE = 10 * 60 * 1000;
+
+    private static final HttpServer server;
+    private static final SWEKSupplier supplier;
+
+    static {
+        try {
+            File home = Files.createTempDirectory("jhv").toFile();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    FileUtils.deleteDir(home);
+                } catch (Exception ignore) {
+                }
+            }));
+            System.setProperty("user.home", home.getPath());
+            JHVDirectory.EVENTS.getFile().mkdirs();
+            Settings.getSingletonInstance().load();
+
+            SWEKSupplier flare = null;
+            for (SWEKGroup group : SWEKConfigurationManager.loadConfig()) {
+                if (group.getName().equals("Flare"))
+                    flare = group.getSuppliers().get(0);
+            }
+            supplier = flare;
+
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", exchange -> {
+                String[] path = exchange.getRequestURI().getPath().split("/"); // /run/page
+                byte[] body = page(Integer.parseInt(path[1]), Integer.parseInt(path[2])).getBytes(StandardCharsets.UTF_8);
+                try {
+                    Thread.sleep(DELAY);
+                } catch (InterruptedException ignore) {
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.setExecutor(Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "Mock HEK");
+                t.setDaemon(true);
+                return t;
+            }));
+            server.start();
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // each run has its own events, so that the runs do not see each other in the database
+    private static long time(int run, int n) {
+        return (run * PAGES * PAGE_EVENTS + n) * CADENCE;
+    }
+
+    private static String page(int run, int page) {
+        StringBuilder json = new StringBuilder("{\"overmax\":").append(page < PAGES - 1).append(",\"result\":[");
+        for (int i = 0; i < PAGE_EVENTS; i++) {
+            int n = page * PAGE_EVENTS + i;
+            long start = time(run, n);
+            if (i > 0)
+                json.append(',');
+            json.append("{\"kb_archivid\":\"ivo://helio-informatics.org/test_").append(run).append('_').append(n)
+                .append("\",\"event_starttime\":\"").append(TimeUtils.format(start))
+                .append("\",\"event_endtime\":\"").append(TimeUtils.format(start + CADENCE / 2))
+                .append("\",\"kb_archivdate\":\"").append(TimeUtils.format(start))
+                .append("\",\"fl_goescls\":\"C").append(1 + n % 9).append(".0\"}");
+        }
+        return json.append("],\"association\":[]}").toString();
+    }
+
+    private static SWEKDownloader downloader(int run) {
+        return new HEKDownloader() {
+            @Override
+            protected String createURL(SWEKGroup group, long start, long end, List<SWEKParam> params, int page) {
+                return "http://localhost:" + server.getAddress().getPort() + '/' + run + '/' + page;
+            }
+        };
+    }
+
+    private static ArrayList<JHVEvent> stored(int run) {
+        return EventDatabase.events2Program(time(run, 0), time(run, PAGES * PAGE_EVENTS) - 1, supplier, new ArrayList<>());
+    }
+
+    @Test
+    public void testPagesMerged() {
+        assertTrue(downloader(1).extern2db(supplier, time(1, 0), time(1, PAGES * PAGE_EVENTS), new ArrayList<>()));
+
+        ArrayList<JHVEvent> events = stored(1);
+        assertEquals(PAGES * PAGE_EVENTS, events.size());
+        HashSet<Long> starts = new HashSet<>();
+        for (JHVEvent event : events)
+            starts.add(event.start);
+        assertEquals(PAGES * PAGE_EVENTS, starts.size());
+        for (int n = 0; n < PAGES * PAGE_EVENTS; n++)
+            assertTrue(starts.contains(time(1, n)));
+    }
+
+    @Test
+    public void testSpeedup() throws Exception {
+        // what extern2db did before, one page after the other
+        SWEKDownloader sequential = downloader(2);
+        long start = System.nanoTime();
+        for (int page = 0; ; page++) {
+            SWEKDownloader.Page eventPage;
+            try (InputStream in = new URL(sequential.createURL(supplier.getGroup(), 0, 0, null, page)).openStream()) {
+                eventPage = sequential.readPage(in, supplier);
+            }
+            assertTrue(eventPage.store.getAsBoolean());
+            if (!eventPage.overmax)
+                break;
+        }
+        long sequentialTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        assertTrue(downloader(3).extern2db(supplier, time(3, 0), time(3, PAGES * PAGE_EVENTS), new ArrayList<>()));
+        long aheadTime = System.nanoTime() - start;
+
+        System.out.println("  " + PAGES + " pages of " + PAGE_EVENTS + " events, " + DELAY + "ms per request: sequential " + sequentialTime / 1000000 +
+                           "ms, fetched ahead " + aheadTime / 1000000 + "ms");
+        assertEquals(stored(2).size(), stored(3).size());
+        assertTrue(aheadTime < 0.8 * sequentialTime);
+    }
+
+}
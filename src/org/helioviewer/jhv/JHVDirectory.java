@@ -196,6 +196,30 @@ public enum JHVDirectory {
             return new File(getPath());
         }
     },
+    /** The persistent JPIP databin cache directory. */
+    JPIP_CACHE {
+        @Override
+        public String getPath() {
+            return HOME.getPath() + "Cache" + File.separator + "JPIP" + File.separator;
+        }
+
+        @Override
+        public File getFile() {
+            return new File(getPath());
+        }
+    },
+    /** The radio spectrogram tile spill directory. */
+    RADIO_CACHE {
+        @Override
+        public String getPath() {
+            return HOME.getPath() + "Cache" + File.separator + "Radio" + File.separator;
+        }
+
+        @Override
+        public File getFile() {
+            return new File(getPath());
+        }
+    },
     EVENTS {
         @Override
         public String getPath() {
@@ -8,7 +8,6 @@ import java.util.TimeZone;
 import javax.swing.JComponent;
 import javax.swing.JFrame;
 
-import org.helioviewer.jhv.base.FileUtils;
 import org.helioviewer.jhv.base.ProxySettings;
 import org.helioviewer.jhv.base.message.Message;
 import org.helioviewer.jhv.base.plugin.PluginManager;
@@ -76,12 +75,7 @@ public class JHelioviewer {
             return;
         }
 
-        try {
-            FileUtils.deleteDir(JHVDirectory.PLUGINSCACHE.getFile()); // clean PFSS cache
-            JHVDirectory.PLUGINSCACHE.getFile().mkdirs();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        JHVDirectory.PLUGINSCACHE.getFile().mkdirs(); // PFSS cache, bounded in size
 
         ProxySettings.init();
         try {
@@ -1,9 +1,11 @@
 package org.helioviewer.jhv.base;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 public class GZIPUtils {
 
@@ -26,4 +28,12 @@ public class GZIPUtils {
         }
     }
 
+    public static byte[] compress(byte[] data, int offset, int length) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(baos, 8192)) {
+            out.write(data, offset, length);
+        }
+        return baos.toByteArray();
+    }
+
 }
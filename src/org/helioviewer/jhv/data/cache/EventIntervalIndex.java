@@ -0,0 +1,37 @@
+package org.helioviewer.jhv.data.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+// Events of a supplier in order of start; the longest duration seen bounds
+// how early an event overlapping a query interval can start
+class EventIntervalIndex {
+
+    private final TreeMap<SortedDateInterval, JHVRelatedEvents> map = new TreeMap<>();
+    private long maxDuration;
+
+    void put(SortedDateInterval interval, JHVRelatedEvents event) {
+        map.put(interval, event);
+        maxDuration = Math.max(maxDuration, interval.end - interval.start);
+    }
+
+    void remove(SortedDateInterval interval) {
+        map.remove(interval);
+    }
+
+    Collection<JHVRelatedEvents> values() {
+        return map.values();
+    }
+
+    // adds the events overlapping [start, end] to result, in order of start
+    void overlapping(long start, long end, List<JHVRelatedEvents> result) {
+        SortedDateInterval from = new SortedDateInterval(start - maxDuration, Long.MIN_VALUE);
+        SortedDateInterval to = new SortedDateInterval(end, Long.MAX_VALUE);
+        for (JHVRelatedEvents event : map.subMap(from, true, to, true).values()) {
+            if (event.getEnd() >= start)
+                result.add(event);
+        }
+    }
+
+}
@@ -8,7 +8,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 
 import org.helioviewer.jhv.base.cache.RequestCache;
 import org.helioviewer.jhv.base.interval.Interval;
@@ -23,7 +22,7 @@ public class JHVEventCache {
     private static final double factor = 0.2;
 
     private static final HashSet<JHVEventHandler> cacheEventHandlers = new HashSet<>();
-    private static final Map<SWEKSupplier, SortedMap<SortedDateInterval, JHVRelatedEvents>> events = new HashMap<>();
+    private static final Map<SWEKSupplier, EventIntervalIndex> events = new HashMap<>();
     private static final Map<Integer, JHVRelatedEvents> relEvents = new HashMap<>();
     private static final Set<SWEKSupplier> activeEventTypes = new HashSet<>();
     private static final Map<SWEKSupplier, RequestCache> downloadedCache = new HashMap<>();
@@ -32,6 +31,8 @@ public class JHVEventCache {
     private static JHVEventCacheRequestHandler incomingRequestManager;
 
     private static JHVRelatedEvents lastHighlighted = null;
+    // changes whenever the set of events or their extent changes
+    private static int version;
 
     public static void registerHandler(JHVEventCacheRequestHandler _incomingRequestManager) {
         incomingRequestManager = _incomingRequestManager;
@@ -60,6 +61,7 @@ public class JHVEventCache {
     }
 
     public static void removeEvents(SWEKSupplier eventType, boolean keepActive) {
+        version++;
         removeEventType(eventType, keepActive);
         fireEventCacheChanged();
     }
@@ -80,6 +82,7 @@ public class JHVEventCache {
     }
 
     public static void eventTypeActivated(SWEKSupplier eventType) {
+        version++;
         activeEventTypes.add(eventType);
         if (!downloadedCache.containsKey(eventType)) {
             downloadedCache.put(eventType, new RequestCache());
@@ -102,6 +105,7 @@ public class JHVEventCache {
     }
 
     public static void add(JHVEvent event) {
+        version++;
         Integer id = event.getUniqueID();
         if (relEvents.containsKey(id)) {
             relEvents.get(id).swapEvent(event, events);
@@ -151,6 +155,7 @@ public class JHVEventCache {
     }
 
     public static void add(JHVAssociation association) {
+        version++;
         if (relEvents.containsKey(association.left) && relEvents.containsKey(association.right)) {
             JHVRelatedEvents ll = relEvents.get(association.left);
             JHVRelatedEvents rr = relEvents.get(association.right);
@@ -164,15 +169,15 @@ public class JHVEventCache {
     }
 
     public static JHVEventCacheResult get(long startDate, long endDate, long extendedStart, long extendedEnd) {
-        Map<SWEKSupplier, SortedMap<SortedDateInterval, JHVRelatedEvents>> eventsResult = new HashMap<>();
+        Map<SWEKSupplier, List<JHVRelatedEvents>> eventsResult = new HashMap<>();
         Map<SWEKSupplier, List<Interval>> missingIntervals = new HashMap<>();
 
         for (SWEKSupplier evt : activeEventTypes) {
-            SortedMap<SortedDateInterval, JHVRelatedEvents> sortedEvents = events.get(evt);
-            if (sortedEvents != null) {
-                long delta = TimeUtils.DAY_IN_MILLIS * 30L;
-                SortedMap<SortedDateInterval, JHVRelatedEvents> submap = sortedEvents.subMap(new SortedDateInterval(startDate - delta, startDate - delta), new SortedDateInterval(endDate + delta, endDate + delta));
-                eventsResult.put(evt, submap);
+            EventIntervalIndex index = events.get(evt);
+            if (index != null) {
+                ArrayList<JHVRelatedEvents> overlapping = new ArrayList<>();
+                index.overlapping(startDate, endDate, overlapping);
+                eventsResult.put(evt, overlapping);
             }
             List<Interval> missing = downloadedCache.get(evt).getMissingIntervals(startDate, endDate);
             if (!missing.isEmpty()) {
@@ -183,6 +188,21 @@ public class JHVEventCache {
         return new JHVEventCacheResult(eventsResult, missingIntervals);
     }
 
+    // all events of the active types
+    public static ArrayList<JHVRelatedEvents> getAll() {
+        ArrayList<JHVRelatedEvents> all = new ArrayList<>();
+        for (SWEKSupplier evt : activeEventTypes) {
+            EventIntervalIndex index = events.get(evt);
+            if (index != null)
+                all.addAll(index.values());
+        }
+        return all;
+    }
+
+    public static int getVersion() {
+        return version;
+    }
+
     private static void removeEventType(SWEKSupplier eventType, boolean keepActive) {
         if (keepActive)
             deleteFromCache(eventType);
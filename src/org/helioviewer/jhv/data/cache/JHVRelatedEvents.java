@@ -5,8 +5,6 @@ import java.awt.Point;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 import javax.swing.ImageIcon;
 
@@ -29,7 +27,7 @@ public class JHVRelatedEvents implements ClickableDrawable {
     private final Color color;
     private boolean highlighted;
 
-    JHVRelatedEvents(JHVEvent event, Map<SWEKSupplier, SortedMap<SortedDateInterval, JHVRelatedEvents>> eventsMap) {
+    JHVRelatedEvents(JHVEvent event, Map<SWEKSupplier, EventIntervalIndex> eventsMap) {
         supplier = event.getSupplier();
         color = JHVCacheColors.getNextColor();
         highlighted = false;
@@ -37,7 +35,7 @@ public class JHVRelatedEvents implements ClickableDrawable {
         events.add(event);
 
         if (!eventsMap.containsKey(supplier)) {
-            eventsMap.put(supplier, new TreeMap<>());
+            eventsMap.put(supplier, new EventIntervalIndex());
         }
 
         interval.start = event.start;
@@ -65,12 +63,12 @@ public class JHVRelatedEvents implements ClickableDrawable {
         return supplier.getGroup().getIcon();
     }
 
-    void merge(JHVRelatedEvents found, Map<SWEKSupplier, SortedMap<SortedDateInterval, JHVRelatedEvents>> eventsMap) {
+    void merge(JHVRelatedEvents found, Map<SWEKSupplier, EventIntervalIndex> eventsMap) {
         events.addAll(found.events);
         associations.addAll(found.associations);
 
         if (!eventsMap.containsKey(supplier)) {
-            eventsMap.put(supplier, new TreeMap<>());
+            eventsMap.put(supplier, new EventIntervalIndex());
         }
         eventsMap.get(supplier).remove(interval);
         eventsMap.get(supplier).remove(found.interval);
@@ -157,7 +155,7 @@ public class JHVRelatedEvents implements ClickableDrawable {
         return nEvents;
     }
 
-    void swapEvent(JHVEvent event, Map<SWEKSupplier, SortedMap<SortedDateInterval, JHVRelatedEvents>> eventsMap) {
+    void swapEvent(JHVEvent event, Map<SWEKSupplier, EventIntervalIndex> eventsMap) {
         int i = 0;
         while (events.get(i).getUniqueID() != event.getUniqueID()) {
             i++;
@@ -167,7 +165,7 @@ public class JHVRelatedEvents implements ClickableDrawable {
         resetTime(eventsMap);
     }
 
-    private void resetTime(Map<SWEKSupplier, SortedMap<SortedDateInterval, JHVRelatedEvents>> eventsMap) {
+    private void resetTime(Map<SWEKSupplier, EventIntervalIndex> eventsMap) {
         long start = Long.MAX_VALUE;
         long end = Long.MIN_VALUE;
         for (JHVEvent evt : events) {
@@ -182,7 +180,7 @@ public class JHVRelatedEvents implements ClickableDrawable {
         }
 
         if (!eventsMap.containsKey(supplier)) {
-            eventsMap.put(supplier, new TreeMap<>());
+            eventsMap.put(supplier, new EventIntervalIndex());
         }
         eventsMap.get(supplier).remove(interval);
 
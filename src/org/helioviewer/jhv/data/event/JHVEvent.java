@@ -2,7 +2,10 @@ package org.helioviewer.jhv.data.event;
 
 import java.util.ArrayList;
 
+import org.helioviewer.jhv.base.GZIPUtils;
+import org.helioviewer.jhv.base.JSONUtils;
 import org.helioviewer.jhv.base.Regex;
+import org.helioviewer.jhv.log.Log;
 
 public class JHVEvent {
 
@@ -20,6 +23,11 @@ public class JHVEvent {
     private JHVPositionInformation positionInformation = null;
     private final int id;
 
+    // compressed JSON, parsed when the parameters are first needed
+    private byte[] json;
+    private boolean decoded;
+    private boolean decodedFull;
+
     public JHVEvent(SWEKSupplier _supplier, int _id, long _start, long _end) {
         supplier = _supplier;
         start = _start;
@@ -27,19 +35,47 @@ public class JHVEvent {
         id = _id;
     }
 
+    public JHVEvent(SWEKSupplier _supplier, int _id, long _start, long _end, byte[] _json) {
+        this(_supplier, _id, _start, _end);
+        json = _json;
+    }
+
+    private synchronized void decode(boolean full) {
+        if (json == null || (decoded && (decodedFull || !full)))
+            return;
+
+        try {
+            JHVEvent e = supplier.getSource().getParser().parseEventJSON(JSONUtils.getJSONStream(GZIPUtils.decompress(json)), supplier, id, start, end, full);
+            allParameters = e.allParameters;
+            visibleParameters = e.visibleParameters;
+            simpleVisibleParameters = e.simpleVisibleParameters;
+            positionInformation = e.positionInformation;
+        } catch (Exception e) {
+            Log.error("JHVEvent.decode() " + id + ": " + e.getMessage());
+            allParameters = visibleParameters = simpleVisibleParameters = new JHVEventParameter[0];
+            json = null;
+        }
+        decoded = true;
+        decodedFull = full;
+    }
+
     public JHVEventParameter[] getAllEventParameters() {
+        decode(true);
         return allParameters;
     }
 
     public JHVEventParameter[] getVisibleEventParameters() {
+        decode(false);
         return visibleParameters;
     }
 
     public JHVEventParameter[] getSimpleVisibleEventParameters() {
+        decode(false);
         return simpleVisibleParameters;
     }
 
     public JHVEventParameter getParameter(String key) {
+        decode(false);
         int i = 0;
         while (i < allParameters.length) {
             JHVEventParameter p = allParameters[i];
@@ -55,6 +91,7 @@ public class JHVEvent {
     }
 
     public JHVPositionInformation getPositionInformation() {
+        decode(false);
         return positionInformation;
     }
 
@@ -1,19 +1,37 @@
 package org.helioviewer.jhv.data.event;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
-import org.helioviewer.jhv.base.JSONUtils;
 import org.helioviewer.jhv.base.interval.Interval;
 import org.helioviewer.jhv.database.EventDatabase;
 import org.helioviewer.jhv.io.DownloadStream;
 import org.helioviewer.jhv.log.Log;
+import org.helioviewer.jhv.threads.JHVThread;
 import org.json.JSONException;
-import org.json.JSONObject;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
 
 public abstract class SWEKDownloader {
 
+    private static final int PAGES_AHEAD = 2;
+    private static final int PAGE_THREADS = 8;
+    private static final ThreadPoolExecutor pageExecutor = new ThreadPoolExecutor(PAGE_THREADS, PAGE_THREADS, 10000L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                                                                                  new JHVThread.NamedThreadFactory("SWEK Page"));
+
+    static {
+        pageExecutor.allowCoreThreadTimeOut(true);
+    }
+
     public boolean extern2db(SWEKSupplier supplier, long start, long end, List<SWEKParam> params) {
         ArrayList<Interval> range = EventDatabase.db2daterange(supplier);
         for (Interval interval : range) {
@@ -22,29 +40,68 @@ public abstract class SWEKDownloader {
             }
         }
 
+        // once a page reports more results, the following pages are fetched ahead while this one is stored
+        ArrayDeque<Future<Page>> pages = new ArrayDeque<>();
         try {
             int page = 0;
             boolean success = true;
             boolean overmax = true;
             while (overmax && success) {
-                JSONObject eventJSON = JSONUtils.getJSONStream(new DownloadStream(createURL(supplier.getGroup(), start, end, params, page)).getInput());
-                overmax = eventJSON.optBoolean("overmax", false);
-                success = parseEvents(eventJSON, supplier) && parseAssociations(eventJSON);
-                page++;
+                Page eventPage = pages.isEmpty() ? getPage(supplier, start, end, params, page++) : pages.remove().get();
+                overmax = eventPage.overmax;
+                if (overmax) {
+                    while (pages.size() < PAGES_AHEAD)
+                        pages.add(fetchPage(supplier, start, end, params, page++));
+                }
+                success = eventPage.store.getAsBoolean();
             }
             return success;
-        } catch (JSONException e) {
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JSONException || cause instanceof JsonProcessingException)
+                Log.error("JSON parse error: " + cause);
+            else
+                Log.error("Could not create input stream for given URL error: " + cause);
+        } catch (JSONException | JsonProcessingException e) {
             Log.error("JSON parse error: " + e);
         } catch (IOException e) {
             Log.error("Could not create input stream for given URL error: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Future<Page> f : pages)
+                f.cancel(true);
         }
         return false;
     }
 
-    protected abstract boolean parseEvents(JSONObject eventJSON, SWEKSupplier supplier);
+    private Page getPage(SWEKSupplier supplier, long start, long end, List<SWEKParam> params, int page) throws IOException {
+        try (InputStream in = new DownloadStream(createURL(supplier.getGroup(), start, end, params, page)).getInput()) {
+            return readPage(in, supplier);
+        }
+    }
+
+    private Future<Page> fetchPage(SWEKSupplier supplier, long start, long end, List<SWEKParam> params, int page) {
+        return pageExecutor.submit(() -> getPage(supplier, start, end, params, page));
+    }
 
-    protected abstract boolean parseAssociations(JSONObject eventJSON);
+    // parses a downloaded page, storing it into the database is deferred to the returned page
+    protected abstract Page readPage(InputStream in, SWEKSupplier supplier) throws IOException;
 
     protected abstract String createURL(SWEKGroup group, long start, long end, List<SWEKParam> params, int page);
 
+    protected static class Page {
+
+        public static final Page INVALID = new Page(false, () -> false);
+
+        final boolean overmax;
+        final BooleanSupplier store;
+
+        public Page(boolean _overmax, BooleanSupplier _store) {
+            overmax = _overmax;
+            store = _store;
+        }
+
+    }
+
 }
@@ -1,13 +1,17 @@
 package org.helioviewer.jhv.database;
 
-import java.io.ByteArrayInputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -15,11 +19,10 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
-import org.helioviewer.jhv.base.GZIPUtils;
-import org.helioviewer.jhv.base.JSONUtils;
 import org.helioviewer.jhv.base.Pair;
 import org.helioviewer.jhv.base.cache.RequestCache;
 import org.helioviewer.jhv.base.interval.Interval;
@@ -27,7 +30,6 @@ import org.helioviewer.jhv.data.event.JHVAssociation;
 import org.helioviewer.jhv.data.event.JHVEvent;
 import org.helioviewer.jhv.data.event.SWEKGroup;
 import org.helioviewer.jhv.data.event.SWEKParam;
-import org.helioviewer.jhv.data.event.SWEKParser;
 import org.helioviewer.jhv.data.event.SWEKRelatedEvents;
 import org.helioviewer.jhv.data.event.SWEKRelatedOn;
 import org.helioviewer.jhv.data.event.SWEKSupplier;
@@ -58,6 +60,9 @@ public class EventDatabase {
 
     private static final ArrayBlockingQueue<Runnable> blockingQueue = new ArrayBlockingQueue<>(10000);
     private static final ExecutorService executor = new ThreadPoolExecutor(1, 1, 10000L, TimeUnit.MILLISECONDS, blockingQueue, new JHVThread.NamedDbThreadFactory("JHVDatabase"), new ThreadPoolExecutor.DiscardPolicy());
+    // queries on read-only connections, concurrent with the writer above
+    private static final int READERS = 3;
+    private static final ExecutorService readExecutor = new ThreadPoolExecutor(READERS, READERS, 10000L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new JHVThread.NamedThreadFactory("JHVDatabase reader"));
 
     private static final long ONEWEEK = 1000 * 60 * 60 * 24 * 7;
     public static int config_hash;
@@ -68,7 +73,6 @@ public class EventDatabase {
     private static final String INSERT_EVENT_TYPE = "INSERT INTO event_type(name, supplier) VALUES(?,?)";
     private static final String INSERT_LINK = "INSERT INTO event_link(left_id, right_id) VALUES(?,?)";
     private static final String SELECT_EVENT_ID_FROM_UID = "SELECT id FROM events WHERE uid=?";
-    private static final String SELECT_LAST_INSERT = "SELECT last_insert_rowid()";
     private static final String UPDATE_EVENT = "UPDATE events SET type_id=?, uid=?,  start=?, end=?, data=? WHERE id=?";
     private static final String DELETE_DATERANGE = "DELETE FROM date_range where type_id=?";
     private static final String INSERT_DATERANGE = "INSERT INTO date_range(type_id,  start, end) VALUES(?,?,?)";
@@ -77,13 +81,14 @@ public class EventDatabase {
     private static final String SELECT_ASSOCIATIONS = "SELECT left_events.id, right_events.id FROM event_link " + "LEFT JOIN events AS left_events ON left_events.id=event_link.left_id " + "LEFT JOIN events AS right_events ON right_events.id=event_link.right_id " + "WHERE left_events.start BETWEEN ? AND ? and left_events.type_id=? order by left_events.start, left_events.end ";
     private static final String SELECT_EVENT_BY_ID = "SELECT e.id, e.start, e.end, e.data, event_type.supplier FROM events AS e LEFT JOIN event_type ON e.type_id = event_type.id WHERE e.id=?";
 
-    private static final HashMap<Object, PreparedStatement> statements = new HashMap<>();
+    // each thread has its own connection
+    private static final ThreadLocal<HashMap<String, PreparedStatement>> statements = ThreadLocal.withInitial(HashMap::new);
 
     private static final HashMap<SWEKSupplier, RequestCache> downloadedCache = new HashMap<>();
 
     private static PreparedStatement getPreparedStatement(Connection connection, String statement) {
-        statement = statement.intern();
-        PreparedStatement pstat = statements.get(statement);
+        HashMap<String, PreparedStatement> cache = statements.get();
+        PreparedStatement pstat = cache.get(statement);
         if (pstat == null) {
             try {
                 pstat = connection.prepareStatement(statement);
@@ -91,11 +96,23 @@ public class EventDatabase {
             } catch (SQLException e) {
                 e.printStackTrace();
             }
-            statements.put(statement, pstat);
+            cache.put(statement, pstat);
         }
         return pstat;
     }
 
+    // rows batched before a failure would otherwise be executed with the next batch
+    private static void clearBatches() {
+        for (PreparedStatement pstat : statements.get().values()) {
+            if (pstat == null)
+                continue;
+            try {
+                pstat.clearBatch();
+            } catch (SQLException ignore) {
+            }
+        }
+    }
+
     private static int getEventTypeId(Connection connection, SWEKSupplier eventType) {
         int typeId = _getEventTypeId(connection, eventType);
         if (typeId == -1) {
@@ -187,17 +204,14 @@ public class EventDatabase {
     }
 
     private static int dump_associationint2db(Connection connection, ArrayList<Pair<Integer, Integer>> assocs) {
-        int len = assocs.size();
-        int i = 0;
         int errorcode = 0;
-        while (i < len && errorcode == 0) {
-            Pair<Integer, Integer> assoc = assocs.get(i);
-            int id0 = assoc.a;
-            int id1 = assoc.b;
+        try {
+            PreparedStatement pstatement = getPreparedStatement(connection, INSERT_LINK);
+            for (Pair<Integer, Integer> assoc : assocs) {
+                int id0 = assoc.a;
+                int id1 = assoc.b;
 
-            if (id0 != -1 && id1 != -1 && id0 != id1) {
-                try {
-                    PreparedStatement pstatement = getPreparedStatement(connection, INSERT_LINK);
+                if (id0 != -1 && id1 != -1 && id0 != id1) {
                     /* Avoid circular insertions by pre-ordering events */
                     if (id0 < id1) {
                         pstatement.setInt(1, id0);
@@ -206,16 +220,20 @@ public class EventDatabase {
                         pstatement.setInt(1, id1);
                         pstatement.setInt(2, id0);
                     }
-                    pstatement.executeUpdate();
-                } catch (SQLException e) {
-                    Log.error("Failed to insert association " + e.getMessage());
+                    pstatement.addBatch();
+                } else if (id0 != id1) {
                     errorcode = -1;
+                    Log.error("Could not add association to database ");
+                    break;
                 }
-            } else if (id0 != id1) {
-                errorcode = -1;
-                Log.error("Could not add association to database ");
             }
-            i++;
+            if (errorcode == 0)
+                pstatement.executeBatch();
+        } catch (SQLException e) {
+            Log.error("Failed to insert association " + e.getMessage());
+            errorcode = -1;
+        } finally {
+            clearBatches();
         }
         try {
             connection.commit();
@@ -283,21 +301,29 @@ public class EventDatabase {
         }
     }
 
-    private static int getEventId(Connection connection, String uid) {
-        int generatedKey = -1;
-        try {
-            PreparedStatement pstatement = getPreparedStatement(connection, SELECT_EVENT_ID_FROM_UID);
-            pstatement.setString(1, uid);
+    private static final int UID_CHUNK = 256;
+    private static final String SELECT_EVENT_IDS_FROM_UIDS = "SELECT id, uid FROM events WHERE uid IN (" + String.join(",", Collections.nCopies(UID_CHUNK, "?")) + ")";
+
+    // Looks up the ids of the events already stored, a chunk of uids per query
+    private static HashMap<String, Integer> getEventIds(Connection connection, Collection<String> uids) throws SQLException {
+        HashMap<String, Integer> ids = new HashMap<>();
+        PreparedStatement pstatement = getPreparedStatement(connection, SELECT_EVENT_IDS_FROM_UIDS);
 
+        Iterator<String> it = uids.iterator();
+        while (it.hasNext()) {
+            for (int i = 1; i <= UID_CHUNK; i++) {
+                if (it.hasNext())
+                    pstatement.setString(i, it.next());
+                else
+                    pstatement.setNull(i, Types.VARCHAR);
+            }
             try (ResultSet rs = pstatement.executeQuery()) {
-                if (rs.next()) {
-                    generatedKey = rs.getInt(1);
+                while (rs.next()) {
+                    ids.put(rs.getString(2), rs.getInt(1));
                 }
             }
-        } catch (SQLException e) {
-            Log.error("Could not select event with uid " + uid + e.getMessage());
         }
-        return generatedKey;
+        return ids;
     }
 
     private static int[] get_id_init_list(int sz) {
@@ -335,77 +361,99 @@ public class EventDatabase {
             if (connection == null) {
                 return inserted_ids;
             }
+            // the whole page is written in one transaction, committed together with the associations
             try {
                 int typeId = getEventTypeId(connection, type);
+                if (typeId == -1) {
+                    Log.error("Failed to insert events of type " + type.getKey());
+                    return inserted_ids;
+                }
+
                 int llen = event2db_list.size();
+                ArrayList<String> uids = new ArrayList<>(llen);
+                for (Event2Db event2db : event2db_list)
+                    uids.add(event2db.uid);
+                HashMap<String, Integer> ids = getEventIds(connection, uids);
+
+                // first occurrence of each new uid is inserted, everything else updated
+                boolean[] inserted = new boolean[llen];
+                LinkedHashSet<String> newUids = new LinkedHashSet<>();
+                PreparedStatement insert = getPreparedStatement(connection, INSERT_FULL_EVENT);
                 for (int i = 0; i < llen; i++) {
                     Event2Db event2db = event2db_list.get(i);
-                    int generatedKey = -1;
-                    if (typeId != -1) {
-                        generatedKey = getEventId(connection, event2db.uid);
-
-                        if (generatedKey == -1) {
-                            {
-                                PreparedStatement pstatement = getPreparedStatement(connection, INSERT_FULL_EVENT);
-                                pstatement.setInt(1, typeId);
-                                pstatement.setString(2, event2db.uid);
-                                pstatement.setLong(3, event2db.start);
-                                pstatement.setLong(4, event2db.end);
-                                pstatement.setLong(5, event2db.archiv);
-                                pstatement.setBinaryStream(6, new ByteArrayInputStream(event2db.compressedJson), event2db.compressedJson.length);
-                                pstatement.executeUpdate();
-                            }
-                            {
-                                PreparedStatement pstatement = getPreparedStatement(connection, SELECT_LAST_INSERT);
-
-                                try (ResultSet rs = pstatement.executeQuery()) {
-                                    if (rs.next()) {
-                                        generatedKey = rs.getInt(1);
-                                    }
-                                }
-                            }
-                        } else {
-                            PreparedStatement pstatement = getPreparedStatement(connection, UPDATE_EVENT);
-                            pstatement.setInt(1, typeId);
-                            pstatement.setString(2, event2db.uid);
-                            pstatement.setLong(3, event2db.start);
-                            pstatement.setLong(4, event2db.end);
-                            pstatement.setBinaryStream(5, new ByteArrayInputStream(event2db.compressedJson), event2db.compressedJson.length);
-                            pstatement.setInt(6, generatedKey);
-                            pstatement.executeUpdate();
-                        }
-                        {
-                            StringBuilder fieldString = new StringBuilder();
-                            StringBuilder varString = new StringBuilder();
-                            for (JHVDatabaseParam p : event2db.paramList) {
-                                fieldString.append(',').append(p.getParamName());
-                                varString.append(",?");
-                            }
-                            String full_statement = "INSERT INTO " + type.getDatabaseName() + "(event_id" + fieldString + ") VALUES(?" + varString + ")";
-                            PreparedStatement pstatement = getPreparedStatement(connection, full_statement);
-                            pstatement.setInt(1, generatedKey);
-
-                            int index = 2;
-                            for (JHVDatabaseParam p : event2db.paramList) {
-                                if (p.isInt()) {
-                                    pstatement.setInt(index, p.getIntValue());
-                                } else if (p.isString()) {
-                                    pstatement.setString(index, p.getStringValue());
-                                } else if (p.isDouble()) {
-                                    pstatement.setDouble(index, p.getDoubleValue());
-                                }
-                                index++;
-                            }
-                            pstatement.executeUpdate();
+                    if (!ids.containsKey(event2db.uid) && newUids.add(event2db.uid)) {
+                        insert.setInt(1, typeId);
+                        insert.setString(2, event2db.uid);
+                        insert.setLong(3, event2db.start);
+                        insert.setLong(4, event2db.end);
+                        insert.setLong(5, event2db.archiv);
+                        insert.setBytes(6, event2db.compressedJson);
+                        insert.addBatch();
+                        inserted[i] = true;
+                    }
+                }
+                insert.executeBatch();
+                if (!newUids.isEmpty())
+                    ids.putAll(getEventIds(connection, newUids));
+
+                PreparedStatement update = getPreparedStatement(connection, UPDATE_EVENT);
+                LinkedHashSet<PreparedStatement> paramStatements = new LinkedHashSet<>();
+                for (int i = 0; i < llen; i++) {
+                    Event2Db event2db = event2db_list.get(i);
+                    Integer generatedKey = ids.get(event2db.uid);
+                    if (generatedKey == null) {
+                        Log.error("Failed to insert event " + event2db.uid);
+                        continue;
+                    }
+
+                    if (!inserted[i]) {
+                        update.setInt(1, typeId);
+                        update.setString(2, event2db.uid);
+                        update.setLong(3, event2db.start);
+                        update.setLong(4, event2db.end);
+                        update.setBytes(5, event2db.compressedJson);
+                        update.setInt(6, generatedKey);
+                        update.addBatch();
+                    }
+
+                    StringBuilder fieldString = new StringBuilder();
+                    StringBuilder varString = new StringBuilder();
+                    for (JHVDatabaseParam p : event2db.paramList) {
+                        fieldString.append(',').append(p.getParamName());
+                        varString.append(",?");
+                    }
+                    String full_statement = "INSERT INTO " + type.getDatabaseName() + "(event_id" + fieldString + ") VALUES(?" + varString + ")";
+                    PreparedStatement pstatement = getPreparedStatement(connection, full_statement);
+                    pstatement.setInt(1, generatedKey);
+
+                    int index = 2;
+                    for (JHVDatabaseParam p : event2db.paramList) {
+                        if (p.isInt()) {
+                            pstatement.setInt(index, p.getIntValue());
+                        } else if (p.isString()) {
+                            pstatement.setString(index, p.getStringValue());
+                        } else if (p.isDouble()) {
+                            pstatement.setDouble(index, p.getDoubleValue());
                         }
-                    } else {
-                        Log.error("Failed to insert event");
+                        index++;
                     }
+                    pstatement.addBatch();
+                    paramStatements.add(pstatement);
+
                     inserted_ids[i] = generatedKey;
                 }
-                connection.commit();
+                update.executeBatch();
+                for (PreparedStatement pstatement : paramStatements)
+                    pstatement.executeBatch();
             } catch (SQLException e) {
                 Log.error("Could not insert event " + e.getMessage());
+                try {
+                    connection.rollback();
+                } catch (SQLException ignore) {
+                }
+                return get_id_init_list(event2db_list.size());
+            } finally {
+                clearBatches();
             }
             ArrayList<Pair<Integer, Integer>> assocs = new ArrayList<>();
             for (int id : inserted_ids) {
@@ -413,7 +461,7 @@ public class EventDatabase {
                     Log.error("failed to dump to database");
                     assocs.add(new Pair<>(1, 1));
                 } else {
-                    ArrayList<JHVEvent> rels = _getOtherRelations(id, type, true, false, true);
+                    ArrayList<JHVEvent> rels = _getOtherRelations(id, type, true, true);
                     for (JHVEvent rel : rels) {
                         assocs.add(new Pair<>(id, rel.getUniqueID()));
                     }
@@ -425,9 +473,9 @@ public class EventDatabase {
         }
     }
 
-    private static JHVEvent parseJSON(JsonEvent jsonEvent, boolean full) {
-        SWEKParser parser = jsonEvent.type.getSource().getParser();
-        return parser.parseEventJSON(JSONUtils.getJSONStream(GZIPUtils.decompress(jsonEvent.json)), jsonEvent.type, jsonEvent.id, jsonEvent.start, jsonEvent.end, full);
+    // the JSON is only decoded when the event parameters are needed
+    private static JHVEvent createEvent(JsonEvent jsonEvent) {
+        return new JHVEvent(jsonEvent.type, jsonEvent.id, jsonEvent.start, jsonEvent.end, jsonEvent.json);
     }
 
     private static ArrayList<JHVEvent> createUniqueList(ArrayList<JHVEvent> events) {
@@ -442,12 +490,12 @@ public class EventDatabase {
         return uniqueEvents;
     }
 
-    public static ArrayList<JHVEvent> getOtherRelations(int id, SWEKSupplier jhvEventType, boolean similartype, boolean full) {
-        return _getOtherRelations(id, jhvEventType, similartype, full, false);
+    public static ArrayList<JHVEvent> getOtherRelations(int id, SWEKSupplier jhvEventType, boolean similartype) {
+        return _getOtherRelations(id, jhvEventType, similartype, false);
     }
 
     //Given an event id and its type, return all related events. If similartype is true, return only related events having the same type.
-    private static ArrayList<JHVEvent> _getOtherRelations(int id, SWEKSupplier jhvEventType, boolean similartype, boolean full, boolean is_dbthread) {
+    private static ArrayList<JHVEvent> _getOtherRelations(int id, SWEKSupplier jhvEventType, boolean similartype, boolean is_dbthread) {
         SWEKGroup group = jhvEventType.getGroup();
         ArrayList<JHVEvent> nEvents = new ArrayList<>();
         ArrayList<JsonEvent> jsonEvents = new ArrayList<>();
@@ -462,7 +510,7 @@ public class EventDatabase {
                     for (SWEKSupplier supplier : reType.getSuppliers()) {
                         if (similartype == (supplier == jhvEventType))
                             if (is_dbthread)
-                                jsonEvents.addAll(rel2prog(id, jhvEventType, supplier, f, w));
+                                jsonEvents.addAll(rel2prog(ConnectionThread.getConnection(), id, jhvEventType, supplier, f, w));
                             else
                                 jsonEvents.addAll(relations2Program(id, jhvEventType, supplier, f, w));
                     }
@@ -478,7 +526,7 @@ public class EventDatabase {
                     for (SWEKSupplier supplier : reType.getSuppliers()) {
                         if (similartype == (supplier == jhvEventType))
                             if (is_dbthread)
-                                jsonEvents.addAll(rel2prog(id, supplier, jhvEventType, f, w));
+                                jsonEvents.addAll(rel2prog(ConnectionThread.getConnection(), id, supplier, jhvEventType, f, w));
                             else
                                 jsonEvents.addAll(relations2Program(id, supplier, jhvEventType, f, w));
                     }
@@ -486,7 +534,7 @@ public class EventDatabase {
             }
 
             for (JsonEvent jsonEvent : jsonEvents) {
-                nEvents.add(parseJSON(jsonEvent, full));
+                nEvents.add(createEvent(jsonEvent));
             }
             jsonEvents.clear();
         }
@@ -494,7 +542,7 @@ public class EventDatabase {
         JsonEvent ev;
         if (!is_dbthread && (ev = event2Program(id)) != null) {
             jsonEvents.add(ev);
-            nEvents.add(parseJSON(ev, full));
+            nEvents.add(createEvent(ev));
         }
 
         return createUniqueList(nEvents);
@@ -645,7 +693,7 @@ public class EventDatabase {
 
     public static ArrayList<JHVEvent> events2Program(long start, long end, SWEKSupplier type, List<SWEKParam> params) {
         FutureTask<ArrayList<JHVEvent>> ft = new FutureTask<>(new Events2Program(start, end, type, params));
-        executor.execute(ft);
+        readExecutor.execute(ft);
         try {
             return ft.get();
         } catch (InterruptedException | ExecutionException e) {
@@ -669,13 +717,13 @@ public class EventDatabase {
 
         @Override
         public ArrayList<JHVEvent> call() {
-            Connection connection = ConnectionThread.getConnection();
+            Connection connection = ConnectionThread.getReadConnection();
             ArrayList<JHVEvent> eventList = new ArrayList<>();
             if (connection == null) {
                 return eventList;
             }
 
-            int typeId = getEventTypeId(connection, type);
+            int typeId = _getEventTypeId(connection, type);
             if (typeId != -1) {
                 try {
                     String join = "LEFT JOIN " + type.getDatabaseName() + " AS tp ON tp.event_id=e.id";
@@ -697,7 +745,7 @@ public class EventDatabase {
                             long _start = rs.getLong(2);
                             long _end = rs.getLong(3);
                             byte[] json = rs.getBytes(4);
-                            eventList.add(parseJSON(new JsonEvent(json, type, id, _start, _end), false));
+                            eventList.add(new JHVEvent(type, id, _start, _end, json));
                         }
                     }
                 } catch (SQLException e) {
@@ -711,7 +759,7 @@ public class EventDatabase {
 
     public static ArrayList<JHVAssociation> associations2Program(long start, long end, SWEKSupplier type) {
         FutureTask<ArrayList<JHVAssociation>> ft = new FutureTask<>(new Associations2Program(start, end, type));
-        executor.execute(ft);
+        readExecutor.execute(ft);
         try {
             return ft.get();
         } catch (InterruptedException | ExecutionException e) {
@@ -733,13 +781,13 @@ public class EventDatabase {
 
         @Override
         public ArrayList<JHVAssociation> call() {
-            Connection connection = ConnectionThread.getConnection();
+            Connection connection = ConnectionThread.getReadConnection();
             ArrayList<JHVAssociation> assocList = new ArrayList<>();
             if (connection == null) {
                 return assocList;
             }
 
-            int typeId = getEventTypeId(connection, type);
+            int typeId = _getEventTypeId(connection, type);
             if (typeId != -1) {
                 try {
                     PreparedStatement pstatement = getPreparedStatement(connection, SELECT_ASSOCIATIONS);
@@ -763,7 +811,7 @@ public class EventDatabase {
 
     private static ArrayList<JsonEvent> relations2Program(int event_id, SWEKSupplier type_left, SWEKSupplier type_right, String param_left, String param_right) {
         FutureTask<ArrayList<JsonEvent>> ft = new FutureTask<>(new Relations2Program(event_id, type_left, type_right, param_left, param_right));
-        executor.execute(ft);
+        readExecutor.execute(ft);
         try {
             return ft.get();
         } catch (InterruptedException | ExecutionException e) {
@@ -772,14 +820,13 @@ public class EventDatabase {
         return new ArrayList<>();
     }
 
-    private static ArrayList<JsonEvent> rel2prog(int event_id, SWEKSupplier type_left, SWEKSupplier type_right, String param_left, String param_right) {
-        Connection connection = ConnectionThread.getConnection();
+    private static ArrayList<JsonEvent> rel2prog(Connection connection, int event_id, SWEKSupplier type_left, SWEKSupplier type_right, String param_left, String param_right) {
         if (connection == null) {
             return new ArrayList<>();
         }
 
-        int type_left_id = getEventTypeId(connection, type_left);
-        int type_right_id = getEventTypeId(connection, type_right);
+        int type_left_id = _getEventTypeId(connection, type_left);
+        int type_right_id = _getEventTypeId(connection, type_right);
 
         if (type_left_id != -1 && type_right_id != -1) {
             try {
@@ -844,12 +891,12 @@ public class EventDatabase {
 
         @Override
         public ArrayList<JsonEvent> call() {
-            return rel2prog(event_id, type_left, type_right, param_left, param_right);
+            return rel2prog(ConnectionThread.getReadConnection(), event_id, type_left, type_right, param_left, param_right);
         }
     }
 
     private static JsonEvent event2prog(int event_id) {
-        Connection connection = ConnectionThread.getConnection();
+        Connection connection = ConnectionThread.getReadConnection();
         if (connection == null) {
             return null;
         }
@@ -890,7 +937,7 @@ public class EventDatabase {
 
     private static JsonEvent event2Program(int event_id) {
         FutureTask<JsonEvent> ft = new FutureTask<>(new Event2Program(event_id));
-        executor.execute(ft);
+        readExecutor.execute(ft);
         JsonEvent evt = null;
         try {
             evt = ft.get();
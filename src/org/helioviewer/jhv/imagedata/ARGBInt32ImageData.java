@@ -58,7 +58,9 @@ public class ARGBInt32ImageData extends ImageData {
     @Override
     protected BufferedImage createBufferedImageFromImageTransport() {
         BufferedImage newImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        newImage.setRGB(0, 0, width, height, (int[]) buffer.array(), 0, width);
+        int[] data = new int[width * height];
+        ((IntBuffer) buffer).duplicate().get(data);
+        newImage.setRGB(0, 0, width, height, data, 0, width);
         return newImage;
     }
 
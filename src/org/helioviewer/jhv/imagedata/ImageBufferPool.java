@@ -0,0 +1,83 @@
+package org.helioviewer.jhv.imagedata;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pool of native pixel buffers in power of two size classes
+public class ImageBufferPool {
+
+    private static final int MIN_CLASS = 16; // 64KB
+    private static final int MAX_CLASS = 30; // 1GB
+
+    // direct buffers are bounded by the max direct memory, three quarters of it are shared by the idle buffers
+    // of the pool and the cache of decoded frames, the rest is left to the frames in use
+    private static final long BUDGET = maxDirectMemory() / 4 * 3;
+    private static final long MAX_POOLED = BUDGET / 8;
+    public static final long CACHE_BUDGET = BUDGET - MAX_POOLED;
+
+    private static final AtomicLong pooled = new AtomicLong();
+    private static final ConcurrentLinkedQueue<ByteBuffer>[] free = newFree();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ConcurrentLinkedQueue<ByteBuffer>[] newFree() {
+        ConcurrentLinkedQueue<ByteBuffer>[] queues = new ConcurrentLinkedQueue[MAX_CLASS + 1];
+        for (int i = MIN_CLASS; i <= MAX_CLASS; i++)
+            queues[i] = new ConcurrentLinkedQueue<>();
+        return queues;
+    }
+
+    // -XX:MaxDirectMemorySize, which defaults to the max heap
+    private static long maxDirectMemory() {
+        String opt = "-XX:MaxDirectMemorySize=";
+        for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (arg.startsWith(opt)) {
+                String size = arg.substring(opt.length()).toLowerCase();
+                int shift = "kmgt".indexOf(size.charAt(size.length() - 1));
+                try {
+                    long value = Long.parseLong(shift < 0 ? size : size.substring(0, size.length() - 1));
+                    return value << (shift < 0 ? 0 : 10 * (shift + 1));
+                } catch (NumberFormatException ignore) {
+                }
+            }
+        }
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    private static int sizeClass(int bytes) {
+        return Math.max(MIN_CLASS, 32 - Integer.numberOfLeadingZeros(bytes - 1));
+    }
+
+    // Returns a native order direct buffer with position 0 and limit bytes
+    public static ByteBuffer get(int bytes) {
+        int cls = sizeClass(bytes);
+        if (cls > MAX_CLASS)
+            throw new IllegalArgumentException("Buffer too large: " + bytes);
+
+        ByteBuffer buf = free[cls].poll();
+        if (buf == null)
+            buf = ByteBuffer.allocateDirect(1 << cls).order(ByteOrder.nativeOrder());
+        else
+            pooled.addAndGet(-buf.capacity());
+
+        buf.clear();
+        buf.limit(bytes);
+        return buf;
+    }
+
+    // Makes the buffer available for reuse; the caller must not touch it afterwards
+    public static void put(ByteBuffer buf) {
+        int cap = buf.capacity();
+        if (!buf.isDirect() || Integer.bitCount(cap) != 1 || cap < 1 << MIN_CLASS)
+            return;
+
+        if (pooled.addAndGet(cap) > MAX_POOLED) { // let the GC have it
+            pooled.addAndGet(-cap);
+            return;
+        }
+        free[sizeClass(cap)].add(buf);
+    }
+
+}
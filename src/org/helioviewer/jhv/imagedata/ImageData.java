@@ -3,6 +3,7 @@ package org.helioviewer.jhv.imagedata;
 import java.awt.image.BufferedImage;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.helioviewer.jhv.astronomy.Position;
 import org.helioviewer.jhv.base.Region;
@@ -25,7 +26,10 @@ public abstract class ImageData {
     private Region region;
     private MetaData metaData;
     private Position.Q viewpoint;
-    private boolean uploaded = false;
+
+    // holders of this image, the pooled storage is given back when the last one lets go
+    private final AtomicInteger refs = new AtomicInteger(1);
+    private ByteBuffer pooled;
 
     ImageData(int _width, int _height, int _bpp, double _gamma) {
         width = _width;
@@ -54,6 +58,35 @@ public abstract class ImageData {
         return buffer;
     }
 
+    // The buffer was obtained from ImageBufferPool and goes back to it once released
+    public void setPooled(ByteBuffer _pooled) {
+        pooled = _pooled;
+    }
+
+    // Native memory held by the image, the capacity of the pooled buffer if any
+    public long getMemorySize() {
+        ByteBuffer p = pooled;
+        return p == null ? (long) width * height * bpp / 8 : p.capacity();
+    }
+
+    // Adds a holder, returns false if the image was already released
+    public boolean retain() {
+        int r;
+        do {
+            r = refs.get();
+            if (r <= 0)
+                return false;
+        } while (!refs.compareAndSet(r, r + 1));
+        return true;
+    }
+
+    public void release() {
+        if (refs.decrementAndGet() == 0 && pooled != null) {
+            ImageBufferPool.put(pooled);
+            pooled = null;
+        }
+    }
+
     public BufferedImage getBufferedImage() {
         if (image == null) {
             image = createBufferedImageFromImageTransport();
@@ -98,14 +131,6 @@ public abstract class ImageData {
         return viewpoint;
     }
 
-    public boolean getUploaded() {
-        return uploaded;
-    }
-
-    public void setUploaded(boolean _uploaded) {
-        uploaded = _uploaded;
-    }
-
     private static final double BRIGHTNESS_F1 = 0.001;
     private static final double BRIGHTNESS_F2 = 128 + 64 + 32;
 
@@ -113,11 +138,11 @@ public abstract class ImageData {
         if (!(buffer instanceof ByteBuffer))
             return 1;
 
-        byte[] ba = ((ByteBuffer) buffer).array();
-        int len = ba.length;
+        ByteBuffer ba = (ByteBuffer) buffer;
+        int len = ba.limit();
         int[] histogram = new int[256];
         for (int i = 0; i < len; i++) {
-            histogram[getUnsigned(ba[i])]++;
+            histogram[getUnsigned(ba.get(i))]++;
         }
 
         long ct = 0;
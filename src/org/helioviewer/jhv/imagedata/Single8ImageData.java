@@ -4,8 +4,8 @@ import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.awt.image.Raster;
-import java.nio.ByteBuffer;
 import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
 public class Single8ImageData extends ImageData {
 
@@ -30,7 +30,9 @@ public class Single8ImageData extends ImageData {
     @Override
     protected BufferedImage createBufferedImageFromImageTransport() {
         BufferedImage newImage = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
-        DataBufferByte dataBuffer = new DataBufferByte((byte[]) buffer.array(), width * height);
+        byte[] data = new byte[width * height];
+        ((ByteBuffer) buffer).duplicate().get(data);
+        DataBufferByte dataBuffer = new DataBufferByte(data, width * height);
         Raster raster = Raster.createPackedRaster(dataBuffer, width, height, width, new int[] { 0xff }, new Point(0, 0));
         newImage.setData(raster);
         return newImage;
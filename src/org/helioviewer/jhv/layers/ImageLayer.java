@@ -148,6 +148,9 @@ public class ImageLayer extends AbstractRenderable implements ImageDataHandler {
             view.abolish();
             view = null;
         }
+        release(imageData);
+        release(prevImageData);
+        release(baseImageData);
         imageData = prevImageData = baseImageData = null;
     }
 
@@ -307,6 +310,8 @@ public class ImageLayer extends AbstractRenderable implements ImageDataHandler {
     private ImageData baseImageData;
 
     private void setImageData(ImageData newImageData) {
+        ImageData oldImageData = imageData, oldPrevImageData = prevImageData, oldBaseImageData = baseImageData;
+
         int frame = newImageData.getMetaData().getFrameNumber();
         if (frame == 0) {
             baseImageData = newImageData;
@@ -319,6 +324,24 @@ public class ImageLayer extends AbstractRenderable implements ImageDataHandler {
         }
 
         imageData = newImageData;
+
+        // each slot holds a reference
+        retain(imageData);
+        retain(prevImageData);
+        retain(baseImageData);
+        release(oldImageData);
+        release(oldPrevImageData);
+        release(oldBaseImageData);
+    }
+
+    private static void retain(ImageData data) {
+        if (data != null)
+            data.retain();
+    }
+
+    private static void release(ImageData data) {
+        if (data != null)
+            data.release();
     }
 
     public ImageData getImageData() {
@@ -269,4 +269,8 @@ public class Layers {
         animationMode = mode;
     }
 
+    public static AnimationMode getAnimationMode() {
+        return animationMode;
+    }
+
 }
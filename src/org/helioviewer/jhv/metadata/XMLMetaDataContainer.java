@@ -1,54 +1,85 @@
 package org.helioviewer.jhv.metadata;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.StringReader;
+import java.util.HashMap;
 import java.util.Optional;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
-import org.w3c.dom.CharacterData;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 
 import com.google.common.primitives.Doubles;
 import com.google.common.primitives.Ints;
 
 public class XMLMetaDataContainer implements MetaDataContainer {
 
-    private Element meta;
+    // factories are not guaranteed to be thread-safe, the metadata is parsed in parallel
+    private static final ThreadLocal<XMLInputFactory> factory = ThreadLocal.withInitial(() -> {
+        XMLInputFactory f = XMLInputFactory.newInstance();
+        f.setProperty(XMLInputFactory.IS_COALESCING, true);
+        f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return f;
+    });
+
+    // text of the first occurrence of each element inside meta
+    private final HashMap<String, String> meta = new HashMap<>();
 
     public void parseXML(String xml) throws Exception {
-        try (InputStream in = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))) {
-            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            meta = (Element) builder.parse(in).getElementsByTagName("meta").item(0);
+        boolean found;
+        try {
+            found = readMeta(xml);
         } catch (Exception e) {
             throw new Exception("XML metadata parse failure: ", e);
         }
 
-        if (meta == null)
+        if (!found)
             throw new Exception("XML metadata without meta tag");
     }
 
     public void destroyXML() {
-        meta = null;
+        meta.clear();
     }
 
-    private String getValueFromXML(String key) {
-        Element line = (Element) meta.getElementsByTagName(key).item(0);
-        if (line == null)
-            return null;
-
-        Node child = line.getFirstChild();
-        if (child instanceof CharacterData)
-            return ((CharacterData) child).getData();
-        return null;
+    // streams through the document, keeping only the leaf values
+    private boolean readMeta(String xml) throws Exception {
+        XMLStreamReader reader = factory.get().createXMLStreamReader(new StringReader(xml));
+        try {
+            int depth = 0; // inside meta
+            String key = null;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (depth > 0) {
+                        depth++;
+                        key = reader.getLocalName();
+                    } else if ("meta".equals(reader.getLocalName()))
+                        depth = 1;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    if (key != null) {
+                        meta.putIfAbsent(key, reader.getText());
+                        key = null;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    key = null;
+                    if (depth > 0 && --depth == 0)
+                        return true;
+                    break;
+                default:
+                    break;
+                }
+            }
+            return depth > 0;
+        } finally {
+            reader.close();
+        }
     }
 
     @Override
     public Optional<String> getString(String key) {
-        return Optional.ofNullable(getValueFromXML(key));
+        return Optional.ofNullable(meta.get(key));
     }
 
     @Override
@@ -0,0 +1,42 @@
+package org.helioviewer.jhv.opengl;
+
+import java.util.Arrays;
+
+import org.helioviewer.jhv.log.Log;
+
+// Histogram of the time spent in the render loop, in power of two buckets of microseconds
+class GLFrameTime {
+
+    private static final int BUCKETS = 20; // up to ~0.5s
+    private static final int REPORT_FRAMES = 1000;
+
+    private final int[] histogram = new int[BUCKETS];
+    private int frames;
+    private long start;
+
+    void begin() {
+        start = System.nanoTime();
+    }
+
+    void end() {
+        long us = (System.nanoTime() - start) / 1000;
+        histogram[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(us))]++;
+
+        if (++frames == REPORT_FRAMES) {
+            Log.debug("GLFrameTime > " + this);
+            Arrays.fill(histogram, 0);
+            frames = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (histogram[i] != 0)
+                sb.append(" <").append(1 << i).append("us:").append(histogram[i]);
+        }
+        return sb.toString();
+    }
+
+}
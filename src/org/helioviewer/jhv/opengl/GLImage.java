@@ -45,16 +45,22 @@ public class GLImage {
     private static final LUT gray = LUT.get("Gray");
 
     public void streamImage(GL2 gl, ImageData imageData, ImageData prevImageData, ImageData baseImageData) {
+        ImageData prevFrame = diffMode == DifferenceMode.None ? null : (isBaseDiff() ? baseImageData : prevImageData);
+        // running difference: the previous frame is still in the main texture, swap instead of uploading again
+        if (prevFrame != null && prevFrame != imageData && prevFrame != diffTex.getResident() && prevFrame == tex.getResident()) {
+            GLTexture t = tex;
+            tex = diffTex;
+            diffTex = t;
+        }
+
         tex.bind(gl, GL2.GL_TEXTURE_2D, GL2.GL_TEXTURE0);
-        if (!imageData.getUploaded()) {
-            imageData.setUploaded(true);
+        if (tex.getResident() != imageData)
             tex.copyImageData2D(gl, imageData);
-        }
 
-        ImageData prevFrame = isBaseDiff() ? baseImageData : prevImageData;
-        if (diffMode != DifferenceMode.None && prevFrame != null) {
+        if (prevFrame != null) {
             diffTex.bind(gl, GL2.GL_TEXTURE_2D, GL2.GL_TEXTURE2);
-            diffTex.copyImageData2D(gl, prevFrame);
+            if (diffTex.getResident() != prevFrame)
+                diffTex.copyImageData2D(gl, prevFrame);
         }
     }
 
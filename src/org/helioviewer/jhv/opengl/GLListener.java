@@ -24,6 +24,7 @@ public class GLListener implements GLEventListener {
 
     private final ScalableSurface surface;
     private boolean reshaped;
+    private final GLFrameTime frameTime = new GLFrameTime();
 
     public GLListener(ScalableSurface _surface) {
         surface = _surface;
@@ -171,6 +172,7 @@ public class GLListener implements GLEventListener {
             return;
         }
 
+        frameTime.begin();
         GL2 gl = (GL2) drawable.getGL();
         GLInfo.updatePixelScale(surface);
 
@@ -191,6 +193,7 @@ public class GLListener implements GLEventListener {
         renderFullFloatScene(camera, gl);
 
         ImageViewerGui.getZoomStatusPanel().update(camera.getWidth(), camera.getViewpoint().distance);
+        frameTime.end();
     }
 
 }
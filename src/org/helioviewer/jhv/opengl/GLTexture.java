@@ -25,6 +25,8 @@ public class GLTexture {
     private int prev_height = -1;
     private int prev_inputGLFormat = -1;
     private int prev_bppGLType = -1;
+    // image currently held by the texture
+    private ImageData resident;
 
     public GLTexture(GL2 gl) {
         int[] tmp = new int[1];
@@ -40,6 +42,7 @@ public class GLTexture {
     public void delete(GL2 gl) {
         gl.glDeleteTextures(1, new int[] { texID }, 0);
         texID = prev_width = -1;
+        resident = null;
     }
 
     private static void genTexture2D(GL2 gl, int internalFormat, int width, int height, int inputFormat, int inputType, Buffer buffer) {
@@ -52,7 +55,13 @@ public class GLTexture {
         gl.glTexParameteri(GL2.GL_TEXTURE_2D, GL2.GL_TEXTURE_WRAP_T, GL2.GL_CLAMP_TO_EDGE);
     }
 
+    public ImageData getResident() {
+        return resident;
+    }
+
     public void copyImageData2D(GL2 gl, ImageData source) {
+        resident = source;
+
         int w = source.getWidth();
         int h = source.getHeight();
         if (w <= 0 || h <= 0 || w > GLInfo.maxTextureSize || h > GLInfo.maxTextureSize) {
@@ -77,6 +86,7 @@ public class GLTexture {
             prev_bppGLType = bppGLType;
         }
 
+        // pooled direct buffers are read by the driver in place, without a copy on our side
         gl.glTexSubImage2D(GL2.GL_TEXTURE_2D, 0, 0, 0, w, h, inputGLFormat, bppGLType, source.getBuffer());
     }
 
@@ -2,19 +2,17 @@ package org.helioviewer.jhv.plugins.eve.radio;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
-import java.awt.image.BufferedImage;
-import java.awt.image.ColorModel;
-import java.awt.image.DataBufferByte;
-import java.awt.image.Raster;
+import java.awt.image.IndexColorModel;
+import java.nio.ByteBuffer;
 
 import org.helioviewer.jhv.base.Region;
 import org.helioviewer.jhv.imagedata.ImageData;
 import org.helioviewer.jhv.imagedata.ImageDataHandler;
 import org.helioviewer.jhv.imagedata.Single8ImageData;
 import org.helioviewer.jhv.log.Log;
+import org.helioviewer.jhv.math.MathUtils;
 import org.helioviewer.jhv.metadata.XMLMetaDataContainer;
 import org.helioviewer.jhv.time.TimeUtils;
 import org.helioviewer.jhv.timelines.draw.DrawController;
@@ -34,9 +32,9 @@ class DownloadedJPXData implements ImageDataHandler {
     private int jp2Width;
     private int jp2Height;
 
-    private BufferedImage bufferedImage;
-    private Region region;
+    private boolean hasData = false;
     private boolean downloadJPXFailed = false;
+    private boolean reopening = false;
 
     DownloadedJPXData(JP2ViewCallisto _view, long start) {
         if (_view != null) { // null for empty
@@ -57,6 +55,8 @@ class DownloadedJPXData implements ImageDataHandler {
                 if (startDate == start && endDate <= start + TimeUtils.DAY_IN_MILLIS) {
                     view = _view;
                     view.setDataHandler(this);
+                    // a day opened again may have its tiles already
+                    hasData = RadioTileCache.contains(startDate, endDate);
                     return;
                 }
             } catch (Exception e) {
@@ -80,9 +80,17 @@ class DownloadedJPXData implements ImageDataHandler {
             view.abolish();
             view = null;
         }
-        bufferedImage = null;
     }
 
+    private int levelWidth(int level) {
+        return (jp2Width + (1 << level) - 1) >> level;
+    }
+
+    private int levelHeight(int level) {
+        return (jp2Height + (1 << level) - 1) >> level;
+    }
+
+    // cuts the decoded region into the tiles it covers completely
     @Override
     public void handleData(ImageData imageData) {
         if (imageData instanceof Single8ImageData) {
@@ -93,30 +101,109 @@ class DownloadedJPXData implements ImageDataHandler {
                 return;
             }
 
-            region = imageData.getRegion();
-            byte[] data = (byte[]) imageData.getBuffer().array();
-            bufferedImage = createBufferedImage(w, h, data);
-
+            Region region = imageData.getRegion();
+            int level = MathUtils.clip((int) Math.round(Math.log(region.width / w) / Math.log(2)), 0, RadioTileCache.MAX_LEVEL);
+            double f = 1. / (1 << level);
+            int x0 = (int) Math.round(region.llx * f);
+            int y0 = (int) Math.round(region.lly * f);
+            int lw = levelWidth(level);
+            int lh = levelHeight(level);
+
+            ByteBuffer buf = ((ByteBuffer) imageData.getBuffer()).duplicate();
+            int T = RadioTileCache.TILE_SIZE;
+            for (int ty = (y0 + T - 1) / T; ty * T < Math.min(lh, y0 + h); ty++) {
+                int th = Math.min(T, lh - ty * T);
+                if (ty * T + th > y0 + h)
+                    break;
+                for (int tx = (x0 + T - 1) / T; tx * T < Math.min(lw, x0 + w); tx++) {
+                    int tw = Math.min(T, lw - tx * T);
+                    if (tx * T + tw > x0 + w)
+                        break;
+
+                    byte[] data = new byte[tw * th];
+                    for (int row = 0; row < th; row++) {
+                        buf.position((ty * T + row - y0) * w + tx * T - x0);
+                        buf.get(data, row * tw, tw);
+                    }
+                    RadioTileCache.put(startDate, endDate, level, tx, ty, new RadioTileCache.Tile(tw, th, data));
+                    hasData = true;
+                }
+            }
             DrawController.drawRequest();
         }
     }
 
-    private static BufferedImage createBufferedImage(int width, int height, byte[] data) {
-        BufferedImage newImage = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, RadioData.getColorModel());
-        DataBufferByte dataBuffer = new DataBufferByte(data, width * height);
-        Raster raster = Raster.createPackedRaster(dataBuffer, width, height, width, new int[] { 0xff }, new Point(0, 0));
-        newImage.setData(raster);
-        return newImage;
+    private static int resolutionLevel(double resolution) {
+        return MathUtils.clip((int) Math.round(-Math.log(resolution) / Math.log(2)), 0, RadioTileCache.MAX_LEVEL);
     }
 
-    void requestData(TimeAxis xAxis, YAxis yAxis) {
-        if (view != null) {
-            Rectangle roi = getROI(xAxis, yAxis);
-            if (decodingNeeded && roi.width > 0 && roi.height > 0) {
-                view.setRegion(roi);
-                view.render(null, null, last_resolution);
+    private int timeToX(long time, int level) {
+        return (int) ((time - startDate) / (double) (endDate - startDate) * levelWidth(level));
+    }
+
+    private long xToTime(int x, int level) {
+        return (long) (startDate + (endDate - startDate) * (x / (double) levelWidth(level)));
+    }
+
+    private int freqToY(double freq, int level) {
+        return (int) ((freq - startFreq) / (endFreq - startFreq) * levelHeight(level));
+    }
+
+    private double yToFreq(int y, int level) {
+        return startFreq + (endFreq - startFreq) * (y / (double) levelHeight(level));
+    }
+
+    // range of tiles visible at the level, as { tx0, tx1, ty0, ty1 }
+    private int[] visibleTiles(TimeAxis xAxis, YAxis yAxis, int level) {
+        int T = RadioTileCache.TILE_SIZE;
+        int xa = timeToX(Math.max(startDate, xAxis.start), level);
+        int xb = timeToX(Math.min(endDate, xAxis.end), level);
+        int ya = freqToY(yAxis.start, level);
+        int yb = freqToY(yAxis.end, level);
+        int maxTx = (levelWidth(level) - 1) / T;
+        int maxTy = (levelHeight(level) - 1) / T;
+        return new int[] { MathUtils.clip(xa / T, 0, maxTx), MathUtils.clip(xb / T, 0, maxTx),
+                           MathUtils.clip(Math.min(ya, yb) / T, 0, maxTy), MathUtils.clip(Math.max(ya, yb) / T, 0, maxTy) };
+    }
+
+    private boolean isCovered(TimeAxis xAxis, YAxis yAxis, int level) {
+        int[] t = visibleTiles(xAxis, yAxis, level);
+        for (int ty = t[2]; ty <= t[3]; ty++) {
+            for (int tx = t[0]; tx <= t[1]; tx++) {
+                if (!RadioTileCache.contains(startDate, endDate, level, tx, ty))
+                    return false;
             }
         }
+        return true;
+    }
+
+    private boolean isVisible(TimeAxis xAxis) {
+        return startDate < xAxis.end && endDate > xAxis.start;
+    }
+
+    // returns false if the view has to be opened again to decode missing tiles
+    boolean requestData(TimeAxis xAxis, YAxis yAxis) {
+        if (downloadJPXFailed || !isVisible(xAxis))
+            return true;
+        if (view == null) {
+            if (reopening || isCovered(xAxis, yAxis, resolutionLevel(computeResolution(visibleHeight(yAxis), xAxis))))
+                return true;
+            reopening = true;
+            return false;
+        }
+
+        Rectangle roi = getROI(xAxis, yAxis);
+        if (decodingNeeded && roi.width > 0 && roi.height > 0) {
+            view.setRegion(roi);
+            view.render(null, null, last_resolution);
+        }
+        return true;
+    }
+
+    private int visibleHeight(YAxis yAxis) {
+        double visibleStartFreq = Math.max(startFreq, yAxis.start);
+        double visibleEndFreq = Math.min(endFreq, yAxis.end);
+        return (int) ((visibleEndFreq - visibleStartFreq) * jp2Height / (endFreq - startFreq) + 0.5);
     }
 
     private double computeResolution(int height, TimeAxis xAxis) {
@@ -164,7 +251,9 @@ class DownloadedJPXData implements ImageDataHandler {
         long visibleEnd = Math.min(endDate, xAxis.end);
         double resolution = computeResolution(height, xAxis);
 
-        if (last_resolution == resolution && y0 == last_y0 && height == last_height && visibleStart >= last_padded_start && visibleEnd <= last_padded_end) {
+        int level = resolutionLevel(resolution);
+        if ((last_resolution == resolution && y0 == last_y0 && height == last_height && visibleStart >= last_padded_start && visibleEnd <= last_padded_end) ||
+            isCovered(xAxis, yAxis, level)) {
             decodingNeeded = false;
             return new Rectangle(0, 0, -1, -1);
         }
@@ -192,30 +281,42 @@ class DownloadedJPXData implements ImageDataHandler {
         last_height = height;
         last_resolution = resolution;
 
-        return new Rectangle(x0, y0, width, height);
+        // decode whole tiles of the level
+        int span = RadioTileCache.TILE_SIZE << level;
+        int ax0 = x0 / span * span;
+        int ay0 = y0 / span * span;
+        int ax1 = Math.min(jp2Width, (x0 + width + span - 1) / span * span);
+        int ay1 = Math.min(jp2Height, (y0 + height + span - 1) / span * span);
+        return new Rectangle(ax0, ay0, ax1 - ax0, ay1 - ay0);
     }
 
+    // coarser levels are drawn first and show through where finer tiles are missing
     void draw(Graphics2D g, Rectangle ga, TimeAxis xAxis, YAxis yAxis) {
-        if (hasData()) {
-            int sx0 = 0;
-            int sy0 = 0;
-            int sx1 = bufferedImage.getWidth();
-            int sy1 = bufferedImage.getHeight();
-            long imStart = (long) (startDate + (endDate - startDate) * region.llx / jp2Width);
-            long imEnd = (long) (startDate + (endDate - startDate) * region.urx / jp2Width);
-
-            double freqimStart = (startFreq + (endFreq - startFreq) * region.lly / jp2Height);
-            double freqimEnd = (startFreq + (endFreq - startFreq) * region.ury / jp2Height);
-
-            int dx0 = xAxis.value2pixel(ga.x, ga.width, imStart);
-            int dx1 = xAxis.value2pixel(ga.x, ga.width, imEnd);
-
-            int dy0 = yAxis.value2pixel(ga.y, ga.height, freqimStart);
-            int dy1 = yAxis.value2pixel(ga.y, ga.height, freqimEnd);
-
-            g.drawImage(bufferedImage, dx0, dy0, dx1, dy1, sx0, sy0, sx1, sy1, null);
-        } else {
+        if (!isVisible(xAxis))
+            return;
+        if (!hasData) {
             drawNoData(g, ga, xAxis);
+            return;
+        }
+
+        IndexColorModel cm = RadioData.getColorModel();
+        int target = resolutionLevel(computeResolution(visibleHeight(yAxis), xAxis));
+        int T = RadioTileCache.TILE_SIZE;
+        for (int level = RadioTileCache.MAX_LEVEL; level >= target; level--) {
+            int[] t = visibleTiles(xAxis, yAxis, level);
+            for (int ty = t[2]; ty <= t[3]; ty++) {
+                for (int tx = t[0]; tx <= t[1]; tx++) {
+                    RadioTileCache.Tile tile = RadioTileCache.get(startDate, endDate, level, tx, ty);
+                    if (tile == null)
+                        continue;
+
+                    int dx0 = xAxis.value2pixel(ga.x, ga.width, xToTime(tx * T, level));
+                    int dx1 = xAxis.value2pixel(ga.x, ga.width, xToTime(tx * T + tile.width, level));
+                    int dy0 = yAxis.value2pixel(ga.y, ga.height, yToFreq(ty * T, level));
+                    int dy1 = yAxis.value2pixel(ga.y, ga.height, yToFreq(ty * T + tile.height, level));
+                    g.drawImage(tile.getImage(cm), dx0, dy0, dx1, dy1, 0, 0, tile.width, tile.height, null);
+                }
+            }
         }
     }
 
@@ -237,18 +338,11 @@ class DownloadedJPXData implements ImageDataHandler {
     }
 
     boolean isDownloading() {
-        return !downloadJPXFailed && !hasData();
-    }
-
-    void changeColormap(ColorModel cm) {
-        if (hasData()) {
-            BufferedImage old = bufferedImage;
-            bufferedImage = new BufferedImage(cm, old.getRaster(), false, null);
-        }
+        return view != null && !hasData;
     }
 
     public boolean hasData() {
-        return bufferedImage != null;
+        return hasData;
     }
 
 }
@@ -11,9 +11,9 @@ import java.awt.image.IndexColorModel;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
@@ -39,14 +39,17 @@ public class RadioData extends AbstractTimelineRenderable {
 
     private static final int MAX_AMOUNT_OF_DAYS = 3;
     private static final int DAYS_IN_CACHE = MAX_AMOUNT_OF_DAYS + 4;
+    private static final int DAYS_KEPT = 4 * DAYS_IN_CACHE;
     private static final HashMap<Long, DownloadedJPXData> cache = new HashMap<>(DAYS_IN_CACHE);
 
     private static RadioOptionsPanel optionsPanel;
+    // the tiles hold intensities, the color model is applied when they are drawn
+    private static final HashMap<LUT, IndexColorModel> colorModels = new HashMap<>();
     private static IndexColorModel colorModel;
 
     public RadioData() {
         String cm = "Spectral";
-        colorModel = createIndexColorModelFromLUT(LUT.get(cm));
+        colorModel = colorModels.computeIfAbsent(LUT.get(cm), RadioData::createIndexColorModelFromLUT);
         optionsPanel = new RadioOptionsPanel(cm);
         setEnabled(false);
     }
@@ -65,10 +68,7 @@ public class RadioData extends AbstractTimelineRenderable {
     }
 
     static void setLUT(LUT lut) {
-        colorModel = createIndexColorModelFromLUT(lut);
-        for (DownloadedJPXData jp2Data : cache.values()) {
-            jp2Data.changeColormap(colorModel);
-        }
+        colorModel = colorModels.computeIfAbsent(lut, RadioData::createIndexColorModelFromLUT);
         DrawController.drawRequest();
     }
 
@@ -100,14 +100,18 @@ public class RadioData extends AbstractTimelineRenderable {
             incomingStartDates.add(latest_cache_start + i * TimeUtils.DAY_IN_MILLIS);
         }
 
-        Iterator<Map.Entry<Long, DownloadedJPXData>> it = cache.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<Long, DownloadedJPXData> entry = it.next();
-            Long key = entry.getKey();
-            if (!incomingStartDates.contains(key)) {
+        // days outside are kept for their tiles, their views are closed
+        for (Map.Entry<Long, DownloadedJPXData> entry : cache.entrySet()) {
+            if (!incomingStartDates.contains(entry.getKey()))
                 entry.getValue().removeData();
-                it.remove();
-            }
+        }
+        // the days farthest from the window are dropped beyond the budget
+        if (cache.size() > DAYS_KEPT) {
+            long center = latest_cache_start + DAYS_IN_CACHE * TimeUtils.DAY_IN_MILLIS / 2;
+            ArrayList<Long> days = new ArrayList<>(cache.keySet());
+            days.sort(Comparator.comparingLong((Long day) -> Math.abs(day - center)).reversed());
+            for (int i = 0; i < days.size() - DAYS_KEPT; i++)
+                cache.remove(days.get(i));
         }
 
         ArrayList<Long> toDownloadStartDates = new ArrayList<>();
@@ -117,8 +121,12 @@ public class RadioData extends AbstractTimelineRenderable {
             }
         }
 
-        if (!toDownloadStartDates.isEmpty()) {
-            JHVWorker<ArrayList<DownloadedJPXData>, Void> imageDownloadWorker = new RadioJPXDownload(toDownloadStartDates);
+        download(toDownloadStartDates);
+    }
+
+    private void download(ArrayList<Long> startDates) {
+        if (!startDates.isEmpty()) {
+            JHVWorker<ArrayList<DownloadedJPXData>, Void> imageDownloadWorker = new RadioJPXDownload(startDates);
             imageDownloadWorker.setThreadName("EVE--RadioDownloader");
             EVEPlugin.executorService.execute(imageDownloadWorker);
         }
@@ -170,7 +178,9 @@ public class RadioData extends AbstractTimelineRenderable {
                 isDownloading--;
                 ArrayList<DownloadedJPXData> jpList = get();
                 for (DownloadedJPXData jp2Data : jpList) {
-                    cache.put(jp2Data.getStartDate(), jp2Data);
+                    DownloadedJPXData old = cache.put(jp2Data.getStartDate(), jp2Data);
+                    if (old != null)
+                        old.removeData();
                 }
                 Timelines.getModel().downloadFinished(RadioData.this);
                 // DrawController.fireRedrawRequest();
@@ -182,10 +192,14 @@ public class RadioData extends AbstractTimelineRenderable {
 
     }
 
-    private static void requestForData() {
+    // days whose views were closed are opened again if tiles are missing
+    private void requestForData() {
+        ArrayList<Long> toReopen = new ArrayList<>();
         for (DownloadedJPXData jpxData : cache.values()) {
-            jpxData.requestData(DrawController.selectedAxis, yAxis);
+            if (!jpxData.requestData(DrawController.selectedAxis, yAxis))
+                toReopen.add(jpxData.getStartDate());
         }
+        download(toReopen);
     }
 
     @Override
@@ -0,0 +1,265 @@
+package org.helioviewer.jhv.plugins.eve.radio;
+
+import java.awt.EventQueue;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.helioviewer.jhv.JHVDirectory;
+import org.helioviewer.jhv.Settings;
+import org.helioviewer.jhv.base.FileUtils;
+import org.helioviewer.jhv.log.Log;
+import org.helioviewer.jhv.threads.JHVThread;
+import org.helioviewer.jhv.timelines.draw.DrawController;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+
+// Tiles of the decoded spectrograms, per day and its end of observation, zoom level and position;
+// the tiles evicted from memory are spilled to disk for the session and loaded back in the background
+class RadioTileCache {
+
+    static final int TILE_SIZE = 256;
+    static final int MAX_LEVEL = 5;
+
+    private static final long MAX_MEMORY = 64L * 1024 * 1024;
+    private static final String EXTENSION = ".tile";
+
+    private static final ExecutorService spillExecutor = new ThreadPoolExecutor(1, 1, 10000L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                                                                                 new JHVThread.NamedThreadFactory("Radio Spill"));
+
+    private static final Cache<Key, Tile> cache = CacheBuilder.newBuilder().
+        maximumWeight(MAX_MEMORY).
+        weigher((Key k, Tile v) -> v.data.length + 64).
+        removalListener((RemovalNotification<Key, Tile> n) -> {
+            if (n.getCause() == RemovalCause.SIZE)
+                spillExecutor.execute(() -> spill(n.getKey(), n.getValue()));
+        }).
+        build();
+
+    // spilled tiles in least recently used order, with their file sizes
+    private static final LinkedHashMap<Key, Long> spilled = new LinkedHashMap<>(16, 0.75f, true);
+    private static long spilledSize;
+    private static final Set<Key> loading = ConcurrentHashMap.newKeySet();
+
+    static {
+        try { // tiles of a previous session may be out of date
+            FileUtils.deleteDir(JHVDirectory.RADIO_CACHE.getFile());
+        } catch (Exception ignore) {
+        }
+        JHVDirectory.RADIO_CACHE.getFile().mkdirs();
+    }
+
+    // never reads the disk, a spilled tile is loaded in the background and drawn with the next redraw
+    static Tile get(long day, long end, int level, int tx, int ty) {
+        Key key = new Key(day, end, level, tx, ty);
+        Tile tile = cache.getIfPresent(key);
+        if (tile == null && isSpilled(key) && loading.add(key)) {
+            spillExecutor.execute(() -> {
+                Tile t = unspill(key);
+                if (t != null) {
+                    cache.put(key, t);
+                    EventQueue.invokeLater(DrawController::drawRequest);
+                }
+                loading.remove(key);
+            });
+        }
+        return tile;
+    }
+
+    static boolean contains(long day, long end, int level, int tx, int ty) {
+        Key key = new Key(day, end, level, tx, ty);
+        return cache.asMap().containsKey(key) || isSpilled(key);
+    }
+
+    static boolean contains(long day, long end) {
+        for (Key key : cache.asMap().keySet()) {
+            if (key.day == day && key.end == end)
+                return true;
+        }
+        synchronized (spilled) {
+            for (Key key : spilled.keySet()) {
+                if (key.day == day && key.end == end)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    static void put(long day, long end, int level, int tx, int ty, Tile tile) {
+        cache.put(new Key(day, end, level, tx, ty), tile);
+    }
+
+    private static boolean isSpilled(Key key) {
+        synchronized (spilled) {
+            return spilled.containsKey(key);
+        }
+    }
+
+    private static File getFile(Key key) {
+        return new File(JHVDirectory.RADIO_CACHE.getPath() + key.day + '_' + key.end + '_' + key.level + '_' + key.tx + '_' + key.ty + EXTENSION);
+    }
+
+    // the tiles of a key do not change, a tile loaded back from disk is not written again
+    private static void spill(Key key, Tile tile) {
+        if (isSpilled(key))
+            return;
+
+        File file = getFile(key);
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(FileUtils.newBufferedOutputStream(tmp))) {
+            out.writeInt(tile.width);
+            out.writeInt(tile.height);
+            out.write(tile.data);
+        } catch (IOException e) {
+            Log.warn("RadioTileCache.spill " + file + ": " + e);
+            tmp.delete();
+            return;
+        }
+
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.warn("RadioTileCache.spill " + file + ": " + e);
+            tmp.delete();
+            return;
+        }
+
+        synchronized (spilled) {
+            long len = file.length();
+            spilled.put(key, len);
+            spilledSize += len;
+            evict();
+        }
+    }
+
+    private static Tile unspill(Key key) {
+        File file = getFile(key);
+        try (DataInputStream in = new DataInputStream(FileUtils.newBufferedInputStream(file))) {
+            int width = in.readInt();
+            int height = in.readInt();
+            if (width < 1 || height < 1 || width > TILE_SIZE || height > TILE_SIZE)
+                throw new IOException("Invalid tile");
+
+            byte[] data = new byte[width * height];
+            in.readFully(data);
+            synchronized (spilled) {
+                spilled.get(key); // most recently used
+            }
+            return new Tile(width, height, data);
+        } catch (IOException e) {
+            Log.warn("RadioTileCache.unspill " + file + ": " + e);
+            synchronized (spilled) {
+                Long len = spilled.remove(key);
+                if (len != null)
+                    spilledSize -= len;
+            }
+            file.delete();
+            return null;
+        }
+    }
+
+    private static long maxSize = -1;
+
+    private static long getMaxSize() {
+        if (maxSize == -1)
+            maxSize = Long.parseLong(Settings.getSingletonInstance().getProperty("cache.radio.size")) * 1024 * 1024;
+        return maxSize;
+    }
+
+    // Removes the least recently used spilled tiles, except the last one, until they fit the size budget;
+    // called with the lock held
+    private static void evict() {
+        long max = getMaxSize();
+        Iterator<Map.Entry<Key, Long>> it = spilled.entrySet().iterator();
+        while (spilledSize > max && spilled.size() > 1 && it.hasNext()) {
+            Map.Entry<Key, Long> entry = it.next();
+            it.remove();
+            spilledSize -= entry.getValue();
+            getFile(entry.getKey()).delete();
+        }
+    }
+
+    static class Tile {
+
+        final int width;
+        final int height;
+        final byte[] data;
+
+        private WritableRaster raster;
+        private BufferedImage image;
+
+        Tile(int _width, int _height, byte[] _data) {
+            width = _width;
+            height = _height;
+            data = _data;
+        }
+
+        // the pixels are shared with the image, a colormap change only wraps the raster again
+        BufferedImage getImage(IndexColorModel cm) {
+            if (image == null || image.getColorModel() != cm) {
+                if (raster == null)
+                    raster = Raster.createPackedRaster(new DataBufferByte(data, data.length), width, height, width, new int[] { 0xff }, new Point(0, 0));
+                image = new BufferedImage(cm, raster, false, null);
+            }
+            return image;
+        }
+
+    }
+
+    private static class Key {
+
+        final long day;
+        final long end;
+        final int level;
+        final int tx;
+        final int ty;
+
+        Key(long _day, long _end, int _level, int _tx, int _ty) {
+            day = _day;
+            end = _end;
+            level = _level;
+            tx = _tx;
+            ty = _ty;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return day == k.day && end == k.end && level == k.level && tx == k.tx && ty == k.ty;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Long.hashCode(day);
+            result = 31 * result + Long.hashCode(end);
+            result = 31 * result + level;
+            result = 31 * result + tx;
+            return 31 * result + ty;
+        }
+
+    }
+
+}
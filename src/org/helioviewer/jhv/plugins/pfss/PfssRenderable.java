@@ -25,6 +25,8 @@ public class PfssRenderable extends AbstractRenderable implements TimespanListen
     private final PfssOptionsPanel optionsPanel;
     private final GLLine line = new GLLine();
     private PfssData previousPfssData;
+    private int lastDetail;
+    private boolean lastFixedColor;
 
     public PfssRenderable(JSONObject jo) {
         int detail = 0;
@@ -118,9 +120,10 @@ public class PfssRenderable extends AbstractRenderable implements TimespanListen
         int detail = optionsPanel.getDetail();
         boolean fixedColor = optionsPanel.getFixedColor();
 
-        if (data != previousPfssData || data.needsUpdate(detail, fixedColor)) {
-            data.calculatePositions(detail, fixedColor);
-            line.setData(gl, data.vertices, data.colors);
+        if (data != previousPfssData || detail != lastDetail || fixedColor != lastFixedColor) {
+            lastDetail = detail;
+            lastFixedColor = fixedColor;
+            line.setData(gl, data.getVertices(detail), data.getColors(detail, fixedColor));
 
             timeString = data.getDateObs().toString();
             ImageViewerGui.getRenderableContainer().fireTimeUpdated(this);
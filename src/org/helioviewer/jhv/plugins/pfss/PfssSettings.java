@@ -2,8 +2,8 @@ package org.helioviewer.jhv.plugins.pfss;
 
 public class PfssSettings {
 
-    // Maximal preload of cache data
-    public static final int CACHE_SIZE = 365 * 4;
+    // Memory budget of the cached data
+    public static final long CACHE_MEMORY = 256L * 1024 * 1024;
 
     public static final int POINTS_PER_LINE = 40;
     public static final int MAX_DETAIL = 8;
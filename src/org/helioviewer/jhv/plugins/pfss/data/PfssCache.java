@@ -1,82 +1,128 @@
 package org.helioviewer.jhv.plugins.pfss.data;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
 import org.helioviewer.jhv.plugins.pfss.PfssSettings;
 
-// Datastructure to cache the Pfss-Data with preload function
+// Time indexed cache of the Pfss-Data within a memory budget, the least recently used snapshots
+// are evicted; snapshots next to the requested time are loaded ahead in the playback direction
 public class PfssCache {
 
-    private final PfssData[] data = new PfssData[PfssSettings.CACHE_SIZE];
-    private int numberOfElementsInCache = 0;
+    private static final int PREFETCH = 8;
+    private static final long LOADING_TIMEOUT = 2 * 60 * 1000;
 
-    public void addData(PfssData pfssData) {
-        if (numberOfElementsInCache < PfssSettings.CACHE_SIZE) {
-            data[numberOfElementsInCache] = pfssData;
-            numberOfElementsInCache++;
-            bubbleSort();
-        }
+    private final TreeMap<Long, String> catalogue = new TreeMap<>();
+    private final TreeMap<Long, PfssData> data = new TreeMap<>();
+    private final LinkedHashMap<Long, PfssData> lru = new LinkedHashMap<>(16, 0.75f, true);
+    private final HashMap<Long, Long> loading = new HashMap<>();
+
+    private final long maxMemory;
+    private final BiConsumer<String, Long> loader;
+
+    private long memory;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private boolean backward;
+
+    public PfssCache() {
+        this(PfssSettings.CACHE_MEMORY, PfssDataLoader::submit);
     }
 
-    private void bubbleSort() {
-        boolean swapped = true;
-        int j = 0;
-        while (swapped) {
-            swapped = false;
-            j++;
-            for (int i = 0; i < numberOfElementsInCache - j; i++) {
-                if (data[i].time > data[i + 1].time) {
-                    PfssData tmp = data[i];
-                    data[i] = data[i + 1];
-                    data[i + 1] = tmp;
-                    swapped = true;
-                }
-            }
-        }
+    PfssCache(long _maxMemory, BiConsumer<String, Long> _loader) {
+        maxMemory = _maxMemory;
+        loader = _loader;
     }
 
-    public PfssData getData(long timestamp) {
-        if (numberOfElementsInCache <= 0)
-            return null;
+    // snapshots available for the current time range
+    public synchronized void addCatalogue(Map<Long, String> urls) {
+        catalogue.putAll(urls);
+        if (lastTimestamp != Long.MIN_VALUE)
+            prefetch(lastTimestamp);
+    }
 
-        int found = binarySearch(timestamp);
-        if (found >= 0)
-            return data[found];
+    // returns whether the snapshot is the one to display now
+    synchronized boolean addData(PfssData pfssData) {
+        long time = pfssData.time;
+        loading.remove(time);
+        if (!catalogue.containsKey(time)) // stale
+            return false;
 
-        if (-found >= numberOfElementsInCache)
-            return data[numberOfElementsInCache - 1];
+        PfssData old = data.put(time, pfssData);
+        if (old != null)
+            memory -= old.getMemorySize();
+        lru.put(time, pfssData);
+        memory += pfssData.getMemorySize();
 
-        if (-found - 1 >= 0) {
-            long diff1 = Math.abs(data[-found - 1].time - timestamp);
-            long diff2 = Math.abs(data[-found].time - timestamp);
-            if (diff1 < diff2) {
-                return data[-found - 1];
-            }
+        Iterator<PfssData> it = lru.values().iterator();
+        while (memory > maxMemory && it.hasNext()) {
+            PfssData eldest = it.next();
+            if (eldest == pfssData)
+                break;
+            it.remove();
+            data.remove(eldest.time);
+            memory -= eldest.getMemorySize();
         }
-        return data[-found];
+
+        return lastTimestamp != Long.MIN_VALUE && nearest(catalogue, lastTimestamp) == time;
     }
 
-    private int binarySearch(long timestamp) {
-        int low = 0;
-        int high = numberOfElementsInCache - 1;
+    public synchronized PfssData getData(long timestamp) {
+        if (timestamp != lastTimestamp) {
+            if (lastTimestamp != Long.MIN_VALUE)
+                backward = timestamp < lastTimestamp;
+            lastTimestamp = timestamp;
+            prefetch(timestamp);
+        }
 
-        while (low <= high) {
-            int mid = (low + high) >>> 1;
-            long midVal = data[mid].time;
+        if (data.isEmpty())
+            return null;
+        return lru.get(nearest(data, timestamp));
+    }
+
+    private void prefetch(long timestamp) {
+        if (catalogue.isEmpty())
+            return;
+
+        long now = System.currentTimeMillis();
+        long time = nearest(catalogue, timestamp);
+        NavigableMap<Long, String> ahead = backward ? catalogue.headMap(time, true).descendingMap() : catalogue.tailMap(time, true);
+
+        int n = 0;
+        for (Map.Entry<Long, String> entry : ahead.entrySet()) {
+            if (n++ == PREFETCH)
+                break;
 
-            if (midVal < timestamp)
-                low = mid + 1;
-            else if (midVal > timestamp)
-                high = mid - 1;
-            else
-                return mid;
+            Long t = entry.getKey();
+            Long since = loading.get(t);
+            if (data.containsKey(t) || (since != null && now - since < LOADING_TIMEOUT))
+                continue;
+
+            loading.put(t, now);
+            loader.accept(entry.getValue(), t);
         }
-        return -(low + 1);
     }
 
-    public void clear() {
-        numberOfElementsInCache = 0;
-        for (int i = 0; i < data.length; i++) {
-            data[i] = null;
-        }
+    private static long nearest(TreeMap<Long, ?> map, long timestamp) {
+        Long floor = map.floorKey(timestamp);
+        Long ceiling = map.ceilingKey(timestamp);
+        if (floor == null)
+            return ceiling;
+        if (ceiling == null)
+            return floor;
+        return timestamp - floor < ceiling - timestamp ? floor : ceiling;
+    }
+
+    public synchronized void clear() {
+        catalogue.clear();
+        data.clear();
+        lru.clear();
+        loading.clear();
+        memory = 0;
     }
 
 }
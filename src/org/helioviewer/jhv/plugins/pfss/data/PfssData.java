@@ -1,6 +1,8 @@
 package org.helioviewer.jhv.plugins.pfss.data;
 
 import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.stream.IntStream;
 
 import org.helioviewer.jhv.astronomy.Position;
 import org.helioviewer.jhv.astronomy.Sun;
@@ -20,24 +22,32 @@ public class PfssData {
         }
     }
 
+    private static final FieldLineColor[] lineColors = FieldLineColor.values();
+    static final int LINE_COLORS = lineColors.length;
+
     private final JHVDate dateObs;
-    private final short[] fieldlinex;
-    private final short[] fieldliney;
-    private final short[] fieldlinez;
-    private final short[] fieldlines;
+    private final ShortBuffer fieldlinex;
+    private final ShortBuffer fieldliney;
+    private final ShortBuffer fieldlinez;
+    private final ShortBuffer fieldlines;
+    private final byte[] lineTypes; // FieldLineColor per line
 
     private final double cphi;
     private final double sphi;
-    public final FloatBuffer vertices;
-    public final FloatBuffer colors;
 
-    private int lastDetail;
-    private boolean lastFixedColor;
+    // lines are laid out by detail level, the geometry of a detail level is a prefix of the buffers
+    private final int[] detailVertices = new int[PfssSettings.MAX_DETAIL + 1];
+    private final int[] order; // line at each position of the layout
+    private final FloatBuffer vertices;
+    // colored for one mode at a time, recolored when the mode changes
+    private final FloatBuffer colors;
+    private boolean fixedColors;
 
     final long time;
 
-    public PfssData(JHVDate _dateObs, short[] _fieldlinex, short[] _fieldliney, short[] _fieldlinez,
-            short[] _fieldlines, long _time) {
+    // the buffers may be mapped from the disk cache, the line types are known then
+    PfssData(JHVDate _dateObs, ShortBuffer _fieldlinex, ShortBuffer _fieldliney, ShortBuffer _fieldlinez,
+            ShortBuffer _fieldlines, byte[] _lineTypes, long _time) {
         dateObs = _dateObs;
         fieldlinex = _fieldlinex;
         fieldliney = _fieldliney;
@@ -45,89 +55,144 @@ public class PfssData {
         fieldlines = _fieldlines;
         time = _time;
 
+        int numberOfLines = fieldlinex.limit() / PfssSettings.POINTS_PER_LINE;
+        lineTypes = _lineTypes == null ? new byte[numberOfLines] : _lineTypes;
+        boolean hasTypes = _lineTypes != null;
+
         Position.L p = Sun.getEarth(dateObs);
         cphi = Math.cos(p.lon);
         sphi = Math.sin(p.lon);
 
-        int numberOfLines = fieldlinex.length / PfssSettings.POINTS_PER_LINE;
-        vertices = BufferUtils.newFloatBuffer(3 * (fieldlinex.length + 2 * numberOfLines));
-        colors = BufferUtils.newFloatBuffer(4 * (fieldlinex.length + 2 * numberOfLines));
+        int numberOfPoints = fieldlinex.limit();
+        order = new int[numberOfLines];
+        vertices = BufferUtils.newFloatBuffer(3 * (numberOfPoints + 2 * numberOfLines));
+        colors = BufferUtils.newFloatBuffer(4 * (numberOfPoints + 2 * numberOfLines));
+
+        calculatePositions(numberOfLines, hasTypes);
     }
 
-    private void addColor(double bright) {
+    private static void addColor(FloatBuffer buf, double bright) {
         if (bright > 0) {
-            BufferUtils.put4f(colors, 1, (float) (1. - bright), (float) (1. - bright), 1);
+            BufferUtils.put4f(buf, 1, (float) (1. - bright), (float) (1. - bright), 1);
         } else {
-            BufferUtils.put4f(colors, (float) (1. + bright), (float) (1. + bright), 1, 1);
+            BufferUtils.put4f(buf, (float) (1. + bright), (float) (1. + bright), 1, 1);
         }
     }
 
-    public boolean needsUpdate(int detail, boolean fixedColor) {
-        return lastDetail != detail || lastFixedColor != fixedColor;
-    }
-
     private static double decode(short f) {
         return (f + 32768.) * (2. / 65535.) - 1.;
     }
 
-    public void calculatePositions(int detail, boolean fixedColor) {
-        lastDetail = detail;
-        lastFixedColor = fixedColor;
-        vertices.clear();
-        colors.clear();
-
-        FieldLineColor type = FieldLineColor.LOOPCOLOR;
-        for (int i = 0; i < fieldlinex.length; i++) {
-            if (i / PfssSettings.POINTS_PER_LINE % 9 <= detail) {
-                double x = 3. * decode(fieldlinex[i]);
-                double y = 3. * decode(fieldliney[i]);
-                double z = 3. * decode(fieldlinez[i]);
-                double bright = decode(fieldlines[i]);
-
-                double helpx = cphi * x + sphi * y;
-                double helpy = -sphi * x + cphi * y;
-                x = helpx;
-                y = helpy;
-
-                if (i % PfssSettings.POINTS_PER_LINE == 0) {
-                    // start line
-                    BufferUtils.put3f(vertices, (float) x, (float) z, (float) -y);
-                    colors.put(BufferUtils.colorNull);
-
-                    BufferUtils.put3f(vertices, (float) x, (float) z, (float) -y);
-                    if (fixedColor) {
-                        double xo = 3. * decode(fieldlinex[i + PfssSettings.POINTS_PER_LINE - 1]);
-                        double yo = 3. * decode(fieldliney[i + PfssSettings.POINTS_PER_LINE - 1]);
-                        double zo = 3. * decode(fieldlinez[i + PfssSettings.POINTS_PER_LINE - 1]);
-                        double ro = Math.sqrt(xo * xo + yo * yo + zo * zo);
-                        double r = Math.sqrt(x * x + y * y + z * z);
-
-                        if (Math.abs(r - ro) < 2.5 - 1.0 - 0.2) {
-                            type = FieldLineColor.LOOPCOLOR;
-                        } else if (bright < 0) {
-                            type = FieldLineColor.INSIDEFIELDCOLOR;
-                        } else {
-                            type = FieldLineColor.OPENFIELDCOLOR;
-                        }
-                        colors.put(type.color);
-                    } else
-                        addColor(bright);
-                } else {
-                    BufferUtils.put3f(vertices, (float) x, (float) z, (float) -y);
-                    if (fixedColor)
-                        colors.put(type.color);
-                    else
-                        addColor(bright);
-                    // end line
-                    if (i % PfssSettings.POINTS_PER_LINE == PfssSettings.POINTS_PER_LINE - 1) {
-                        BufferUtils.put3f(vertices, (float) x, (float) z, (float) -y);
-                        colors.put(BufferUtils.colorNull);
+    // called from the loader thread, the lines are computed in parallel
+    private void calculatePositions(int numberOfLines, boolean hasTypes) {
+        int vertsPerLine = PfssSettings.POINTS_PER_LINE + 2;
+        int k = 0;
+        for (int detail = 0; detail <= PfssSettings.MAX_DETAIL; detail++) {
+            for (int line = detail; line < numberOfLines; line += PfssSettings.MAX_DETAIL + 1)
+                order[k++] = line;
+            detailVertices[detail] = k * vertsPerLine;
+        }
+
+        IntStream.range(0, numberOfLines).parallel().forEach(j -> calculateLine(order[j], j * vertsPerLine, hasTypes));
+    }
+
+    private void calculateLine(int line, int vertex, boolean hasTypes) {
+        FloatBuffer vbuf = vertices.duplicate();
+        vbuf.position(3 * vertex);
+
+        int start = line * PfssSettings.POINTS_PER_LINE;
+        int end = start + PfssSettings.POINTS_PER_LINE - 1;
+        for (int i = start; i <= end; i++) {
+            double x = 3. * decode(fieldlinex.get(i));
+            double y = 3. * decode(fieldliney.get(i));
+            double z = 3. * decode(fieldlinez.get(i));
+
+            double helpx = cphi * x + sphi * y;
+            double helpy = -sphi * x + cphi * y;
+            x = helpx;
+            y = helpy;
+
+            if (i == start) {
+                // start line
+                BufferUtils.put3f(vbuf, (float) x, (float) z, (float) -y);
+
+                if (!hasTypes) {
+                    double xo = 3. * decode(fieldlinex.get(end));
+                    double yo = 3. * decode(fieldliney.get(end));
+                    double zo = 3. * decode(fieldlinez.get(end));
+                    double ro = Math.sqrt(xo * xo + yo * yo + zo * zo);
+                    double r = Math.sqrt(x * x + y * y + z * z);
+
+                    FieldLineColor type;
+                    if (Math.abs(r - ro) < 2.5 - 1.0 - 0.2) {
+                        type = FieldLineColor.LOOPCOLOR;
+                    } else if (decode(fieldlines.get(i)) < 0) {
+                        type = FieldLineColor.INSIDEFIELDCOLOR;
+                    } else {
+                        type = FieldLineColor.OPENFIELDCOLOR;
                     }
+                    lineTypes[line] = (byte) type.ordinal();
                 }
             }
+
+            BufferUtils.put3f(vbuf, (float) x, (float) z, (float) -y);
+
+            if (i == end) {
+                // end line
+                BufferUtils.put3f(vbuf, (float) x, (float) z, (float) -y);
+            }
         }
-        vertices.flip();
-        colors.flip();
+        colorLine(line, vertex, false);
+    }
+
+    private void colorLine(int line, int vertex, boolean fixedColor) {
+        FloatBuffer cbuf = colors.duplicate();
+        cbuf.position(4 * vertex);
+
+        float[] color = lineColors[lineTypes[line]].color;
+        int start = line * PfssSettings.POINTS_PER_LINE;
+        int end = start + PfssSettings.POINTS_PER_LINE - 1;
+        cbuf.put(BufferUtils.colorNull);
+        for (int i = start; i <= end; i++) {
+            if (fixedColor)
+                cbuf.put(color);
+            else
+                addColor(cbuf, decode(fieldlines.get(i)));
+        }
+        cbuf.put(BufferUtils.colorNull);
+    }
+
+    public FloatBuffer getVertices(int detail) {
+        FloatBuffer buf = vertices.duplicate();
+        buf.position(0).limit(3 * detailVertices[detail]);
+        return buf;
+    }
+
+    // called from the render thread
+    public synchronized FloatBuffer getColors(int detail, boolean fixedColor) {
+        if (fixedColor != fixedColors) {
+            fixedColors = fixedColor;
+            int vertsPerLine = PfssSettings.POINTS_PER_LINE + 2;
+            IntStream.range(0, order.length).parallel().forEach(j -> colorLine(order[j], j * vertsPerLine, fixedColor));
+        }
+
+        FloatBuffer buf = colors.duplicate();
+        buf.position(0).limit(4 * detailVertices[detail]);
+        return buf;
+    }
+
+    // the field lines mapped from the disk cache are not held in memory
+    long getMemorySize() {
+        long lines = fieldlinex.hasArray() ? 2L * 4 * fieldlinex.limit() : 0;
+        return lines + lineTypes.length + 4L * (order.length + vertices.capacity() + colors.capacity());
+    }
+
+    ShortBuffer[] getFieldLines() {
+        return new ShortBuffer[] { fieldlinex.duplicate(), fieldliney.duplicate(), fieldlinez.duplicate(), fieldlines.duplicate() };
+    }
+
+    byte[] getLineTypes() {
+        return lineTypes;
     }
 
     public JHVDate getDateObs() {
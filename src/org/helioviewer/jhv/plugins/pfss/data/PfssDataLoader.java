@@ -2,12 +2,15 @@ package org.helioviewer.jhv.plugins.pfss.data;
 
 import java.awt.EventQueue;
 import java.io.BufferedInputStream;
-import java.io.File;
+import java.nio.ShortBuffer;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
-import org.helioviewer.jhv.JHVDirectory;
+import org.helioviewer.jhv.display.Displayer;
 import org.helioviewer.jhv.io.DownloadStream;
 import org.helioviewer.jhv.plugins.pfss.PfssPlugin;
 import org.helioviewer.jhv.plugins.pfss.PfssSettings;
+import org.helioviewer.jhv.threads.CancelTask;
 import org.helioviewer.jhv.time.JHVDate;
 
 import nom.tam.fits.BasicHDU;
@@ -17,6 +20,14 @@ import nom.tam.fits.Fits;
 class PfssDataLoader implements Runnable {
 
     private static final int BUFSIZ = 65536;
+    private static final int TIMEOUT_DOWNLOAD_SECONDS = 120;
+
+    static void submit(String url, long time) {
+        FutureTask<Void> dataLoaderTask = new FutureTask<>(new PfssDataLoader(url, time), null);
+        PfssPlugin.pfssDataPool.execute(dataLoaderTask);
+        PfssPlugin.pfssReaperPool.schedule(new CancelTask(dataLoaderTask), TIMEOUT_DOWNLOAD_SECONDS, TimeUnit.SECONDS);
+    }
+
     private final String url;
     private final long time;
 
@@ -27,31 +38,25 @@ class PfssDataLoader implements Runnable {
 
     @Override
     public void run() {
-        String cacheFileName = JHVDirectory.PLUGINSCACHE.getPath() + url.replace('/', '_');
-        File f = new File(cacheFileName);
-
-        String remote;
-        boolean loadFromFile;
-        if (f.canRead() && !f.isDirectory()) {
-            loadFromFile = true;
-            remote = f.toURI().toString();
-        } else {
-            loadFromFile = false;
-            remote = PfssSettings.baseURL + url;
+        PfssData pfssData = PfssDiskCache.read(url, time);
+        if (pfssData == null) {
+            try (Fits fits = new Fits(new BufferedInputStream(new DownloadStream(PfssSettings.baseURL + url).getInput(), BUFSIZ))) {
+                pfssData = getPfssData(fits, time);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return;
+            }
+            PfssDiskCache.write(url, pfssData);
         }
 
-        try (Fits fits = new Fits(new BufferedInputStream(new DownloadStream(remote).getInput(), BUFSIZ))) {
-            PfssData pfssData = getPfssData(fits, time);
-            EventQueue.invokeLater(() -> PfssPlugin.getPfsscache().addData(pfssData));
-
-            if (!loadFromFile)
-                fits.write(f);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        PfssData data = pfssData;
+        EventQueue.invokeLater(() -> {
+            if (PfssPlugin.getPfsscache().addData(data))
+                Displayer.display();
+        });
     }
 
-    private static PfssData getPfssData(Fits fits, long time) throws Exception {
+    static PfssData getPfssData(Fits fits, long time) throws Exception {
         BasicHDU<?> hdus[] = fits.read();
         if (hdus == null || hdus.length < 2 || !(hdus[1] instanceof BinaryTableHDU))
             throw new Exception("Could not read FITS");
@@ -65,7 +70,7 @@ class PfssDataLoader implements Runnable {
         String dateFits = bhdu.getHeader().getStringValue("DATE-OBS");
         if (dateFits == null)
             throw new Exception("DATE-OBS not found");
-        return new PfssData(new JHVDate(dateFits), fieldlinex, fieldliney, fieldlinez, fieldlines, time);
+        return new PfssData(new JHVDate(dateFits), ShortBuffer.wrap(fieldlinex), ShortBuffer.wrap(fieldliney), ShortBuffer.wrap(fieldlinez), ShortBuffer.wrap(fieldlines), null, time);
     }
 
 }
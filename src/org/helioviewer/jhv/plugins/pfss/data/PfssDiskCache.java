@@ -0,0 +1,183 @@
+package org.helioviewer.jhv.plugins.pfss.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.helioviewer.jhv.JHVDirectory;
+import org.helioviewer.jhv.Settings;
+import org.helioviewer.jhv.log.Log;
+import org.helioviewer.jhv.plugins.pfss.PfssSettings;
+import org.helioviewer.jhv.time.JHVDate;
+
+// Snapshots stored in a form which is memory mapped back without parsing:
+// header, the four field line arrays and the color type of each line, big endian
+class PfssDiskCache {
+
+    private static final int MAGIC = 0x50465353; // PFSS
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    private static final String EXTENSION = ".pfss";
+
+    private static File getFile(String url) {
+        return new File(JHVDirectory.PLUGINSCACHE.getPath() + url.replace('/', '_') + EXTENSION);
+    }
+
+    static PfssData read(String url, long time) {
+        File file = getFile(url);
+        if (!file.canRead())
+            return null;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.limit() < HEADER_SIZE || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION)
+                throw new IOException("Unknown cache file format");
+
+            long dateObs = buf.getLong(8);
+            int numberOfPoints = buf.getInt(16);
+            int numberOfLines = buf.getInt(20);
+            if (numberOfPoints < 0 || numberOfLines != numberOfPoints / PfssSettings.POINTS_PER_LINE ||
+                buf.limit() != HEADER_SIZE + 8L * numberOfPoints + numberOfLines)
+                throw new IOException("Truncated cache file");
+
+            ShortBuffer[] lines = new ShortBuffer[4];
+            for (int i = 0; i < lines.length; i++) {
+                buf.position(HEADER_SIZE + 2 * i * numberOfPoints);
+                lines[i] = buf.slice().asShortBuffer();
+                lines[i].limit(numberOfPoints);
+            }
+
+            byte[] lineTypes = new byte[numberOfLines];
+            buf.position(HEADER_SIZE + 8 * numberOfPoints);
+            buf.get(lineTypes);
+            for (byte type : lineTypes) {
+                if (type < 0 || type >= PfssData.LINE_COLORS)
+                    throw new IOException("Invalid line type");
+            }
+
+            file.setLastModified(System.currentTimeMillis());
+            touch(file);
+            return new PfssData(new JHVDate(dateObs), lines[0], lines[1], lines[2], lines[3], lineTypes, time);
+        } catch (Exception e) {
+            Log.warn("PfssDiskCache.read " + file + ": " + e);
+            remove(file);
+            return null;
+        }
+    }
+
+    static void write(String url, PfssData data) {
+        File file = getFile(url);
+        File tmp = new File(file.getPath() + ".tmp");
+
+        ShortBuffer[] lines = data.getFieldLines();
+        byte[] lineTypes = data.getLineTypes();
+        int numberOfPoints = lines[0].limit();
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + 8 * numberOfPoints + lineTypes.length);
+        buf.putInt(MAGIC).putInt(VERSION).putLong(data.getDateObs().milli).putInt(numberOfPoints).putInt(lineTypes.length);
+        for (ShortBuffer line : lines) {
+            buf.asShortBuffer().put(line);
+            buf.position(buf.position() + 2 * numberOfPoints);
+        }
+        buf.put(lineTypes);
+        buf.flip();
+
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buf.hasRemaining())
+                channel.write(buf);
+        } catch (IOException e) {
+            Log.warn("PfssDiskCache.write " + file + ": " + e);
+            tmp.delete();
+            return;
+        }
+
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.warn("PfssDiskCache.write " + file + ": " + e);
+            tmp.delete();
+            return;
+        }
+        add(file);
+    }
+
+    private static long maxSize = -1;
+
+    private static long getMaxSize() {
+        if (maxSize == -1)
+            maxSize = Long.parseLong(Settings.getSingletonInstance().getProperty("cache.pfss.size")) * 1024 * 1024;
+        return maxSize;
+    }
+
+    // files of the plugin cache in least recently used order, with their sizes;
+    // the directory is listed once, then kept up to date with the files read, written and removed
+    private static LinkedHashMap<File, Long> files;
+    private static long total;
+
+    private static void index() {
+        if (files != null)
+            return;
+
+        files = new LinkedHashMap<>(16, 0.75f, true);
+        File[] list = JHVDirectory.PLUGINSCACHE.getFile().listFiles(File::isFile);
+        if (list == null)
+            return;
+
+        Arrays.sort(list, Comparator.comparingLong(File::lastModified));
+        for (File f : list) {
+            long len = f.length();
+            files.put(f, len);
+            total += len;
+        }
+    }
+
+    private static synchronized void touch(File file) {
+        index();
+        files.get(file);
+    }
+
+    private static synchronized void remove(File file) {
+        index();
+        Long len = files.remove(file);
+        if (len != null)
+            total -= len;
+        file.delete();
+    }
+
+    private static synchronized void add(File file) {
+        index();
+        long len = file.length();
+        Long old = files.put(file, len);
+        total += old == null ? len : len - old;
+        evict(file);
+    }
+
+    // Removes the least recently used files of the plugin cache until it fits the size budget
+    private static void evict(File keep) {
+        long max = getMaxSize();
+        Iterator<Map.Entry<File, Long>> it = files.entrySet().iterator();
+        while (total > max && it.hasNext()) {
+            Map.Entry<File, Long> entry = it.next();
+            File f = entry.getKey();
+            if (f.equals(keep))
+                continue;
+            if (f.delete() || !f.exists()) {
+                it.remove();
+                total -= entry.getValue();
+            }
+        }
+    }
+
+}
@@ -6,22 +6,18 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.TreeMap;
-import java.util.concurrent.FutureTask;
-import java.util.concurrent.TimeUnit;
 
 import org.helioviewer.jhv.base.Pair;
 import org.helioviewer.jhv.io.DownloadStream;
 import org.helioviewer.jhv.log.Log;
 import org.helioviewer.jhv.plugins.pfss.PfssPlugin;
 import org.helioviewer.jhv.plugins.pfss.PfssSettings;
-import org.helioviewer.jhv.threads.CancelTask;
 import org.helioviewer.jhv.time.TimeUtils;
 
 public class PfssNewDataLoader implements Runnable {
 
-    private static final int TIMEOUT_DOWNLOAD_SECONDS = 120;
-
     private final long start;
     private final long end;
     private static final TreeMap<Integer, ArrayList<Pair<String, Long>>> parsedCache = new TreeMap<>();
@@ -71,15 +67,13 @@ public class PfssNewDataLoader implements Runnable {
                 parsedCache.put(cacheKey, urls);
             }
 
+            HashMap<Long, String> available = new HashMap<>();
             for (Pair<String, Long> pair : urls) {
                 Long dd = pair.b;
-                String url = pair.a;
-                if (dd > start - TimeUtils.DAY_IN_MILLIS && dd < end + TimeUtils.DAY_IN_MILLIS) {
-                    FutureTask<Void> dataLoaderTask = new FutureTask<>(new PfssDataLoader(url, dd), null);
-                    PfssPlugin.pfssDataPool.execute(dataLoaderTask);
-                    PfssPlugin.pfssReaperPool.schedule(new CancelTask(dataLoaderTask), TIMEOUT_DOWNLOAD_SECONDS, TimeUnit.SECONDS);
-                }
+                if (dd > start - TimeUtils.DAY_IN_MILLIS && dd < end + TimeUtils.DAY_IN_MILLIS)
+                    available.put(dd, pair.a);
             }
+            PfssPlugin.getPfsscache().addCatalogue(available);
 
             if (startMonth == 11) {
                 startMonth = 0;
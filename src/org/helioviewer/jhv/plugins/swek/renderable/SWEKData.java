@@ -1,13 +1,12 @@
 package org.helioviewer.jhv.plugins.swek.renderable;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
 
 import org.helioviewer.jhv.data.cache.JHVEventCache;
 import org.helioviewer.jhv.data.cache.JHVEventHandler;
 import org.helioviewer.jhv.data.cache.JHVRelatedEvents;
-import org.helioviewer.jhv.data.cache.SortedDateInterval;
 import org.helioviewer.jhv.data.event.JHVEvent;
 import org.helioviewer.jhv.data.event.JHVEventParameter;
 import org.helioviewer.jhv.data.event.SWEKSupplier;
@@ -46,9 +45,9 @@ public class SWEKData implements TimespanListener, JHVEventHandler {
     static ArrayList<JHVRelatedEvents> getActiveEvents(long timestamp) {
         ArrayList<JHVRelatedEvents> activeEvents = new ArrayList<>();
 
-        Map<SWEKSupplier, SortedMap<SortedDateInterval, JHVRelatedEvents>> events = JHVEventCache.get(startTime, endTime, startTime, endTime).getAvailableEvents();
-        for (SortedMap<SortedDateInterval, JHVRelatedEvents> eventMap : events.values()) {
-            for (JHVRelatedEvents evr : eventMap.values()) {
+        Map<SWEKSupplier, List<JHVRelatedEvents>> events = JHVEventCache.get(startTime, endTime, startTime, endTime).getAvailableEvents();
+        for (List<JHVRelatedEvents> eventList : events.values()) {
+            for (JHVRelatedEvents evr : eventList) {
                 if (evr.getStart() <= timestamp && timestamp <= evr.getEnd()) {
                     activeEvents.add(evr);
                 }
@@ -1,6 +1,7 @@
 package org.helioviewer.jhv.plugins.swek.sources.comesep;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,7 +24,12 @@ public class ComesepDownloader extends SWEKDownloader {
     private static final String _baseurl = "http://swhv.oma.be/comesep/comeseprequestapi/getComesep.php?";
 
     @Override
-    protected boolean parseEvents(JSONObject eventJSON, SWEKSupplier supplier) {
+    protected Page readPage(InputStream in, SWEKSupplier supplier) {
+        JSONObject eventJSON = JSONUtils.getJSONStream(in);
+        return new Page(eventJSON.optBoolean("overmax", false), () -> parseEvents(eventJSON, supplier) && parseAssociations(eventJSON));
+    }
+
+    private static boolean parseEvents(JSONObject eventJSON, SWEKSupplier supplier) {
         JSONArray results = eventJSON.getJSONArray("results");
         try {
             ArrayList<EventDatabase.Event2Db> event2db_list = new ArrayList<>();
@@ -63,8 +69,7 @@ public class ComesepDownloader extends SWEKDownloader {
         return true;
     }
 
-    @Override
-    protected boolean parseAssociations(JSONObject eventJSON) {
+    private static boolean parseAssociations(JSONObject eventJSON) {
         JSONArray associations = eventJSON.getJSONArray("associations");
         int len = associations.length();
         Pair<?,?>[] assocs = new Pair<?,?>[len];
@@ -1,6 +1,7 @@
 package org.helioviewer.jhv.plugins.swek.sources.hek;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -10,7 +11,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-import org.helioviewer.jhv.base.JSONUtils;
+import org.helioviewer.jhv.base.GZIPUtils;
 import org.helioviewer.jhv.base.Pair;
 import org.helioviewer.jhv.base.conversion.GOESLevel;
 import org.helioviewer.jhv.data.event.SWEKDownloader;
@@ -21,86 +22,144 @@ import org.helioviewer.jhv.database.EventDatabase;
 import org.helioviewer.jhv.database.JHVDatabaseParam;
 import org.helioviewer.jhv.log.Log;
 import org.helioviewer.jhv.time.TimeUtils;
-import org.json.JSONArray;
-import org.json.JSONObject;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.io.ByteStreams;
 
 @SuppressWarnings("unchecked")
 public class HEKDownloader extends SWEKDownloader {
 
     private static final String _baseURL = "http://www.lmsal.com/hek/her?";
 
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    // single pass over the page: the indexed fields are picked on the way and
+    // the bytes of each event are compressed as received, without building a tree
     @Override
-    protected boolean parseEvents(JSONObject eventJSON, SWEKSupplier supplier) {
-        JSONArray results = eventJSON.getJSONArray("result");
-        ArrayList<EventDatabase.Event2Db> event2db_list = new ArrayList<>();
+    protected Page readPage(InputStream in, SWEKSupplier supplier) throws IOException {
+        byte[] data = ByteStreams.toByteArray(in);
 
-        for (int i = 0; i < results.length(); i++) {
-            JSONObject result = results.getJSONObject(i);
-            byte[] compressed;
-            try {
-                compressed = JSONUtils.compressJSON(result);
-            } catch (IOException e) {
-                Log.error("compression error");
-                return false;
+        HashMap<String, String> dbTypes = supplier.getGroup().getAllDatabaseFields();
+        HashMap<String, String> dbFields = new HashMap<>();
+        for (String fieldName : dbTypes.keySet())
+            dbFields.put(fieldName.toLowerCase(Locale.ENGLISH), fieldName);
+
+        ArrayList<EventDatabase.Event2Db> event2db_list = new ArrayList<>();
+        ArrayList<Pair<String, String>> assocList = new ArrayList<>();
+        boolean overmax = false;
+
+        try (JsonParser parser = jsonFactory.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new JsonParseException(parser, "Expected object");
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("overmax".equals(name)) {
+                    overmax = token == JsonToken.VALUE_TRUE;
+                } else if ("result".equals(name) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        EventDatabase.Event2Db event = readEvent(parser, data, dbTypes, dbFields);
+                        if (event == null)
+                            return Page.INVALID;
+                        event2db_list.add(event);
+                    }
+                } else if ("association".equals(name) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        HashMap<String, String> values = readValues(parser, null);
+                        String first = values.get("first_ivorn"), second = values.get("second_ivorn");
+                        if (first != null && second != null)
+                            assocList.add(new Pair<>(first, second));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
             }
+        }
+
+        Pair<?,?>[] assocs = assocList.toArray(new Pair<?,?>[0]);
+        return new Page(overmax, () -> {
+            EventDatabase.dump_event2db(event2db_list, supplier);
+            return EventDatabase.dump_association2db((Pair<String,String>[]) assocs) != -1;
+        });
+    }
 
-            if (result.has("fl_goescls"))
-                result.put("JHV_GOESClass", GOESLevel.getFloatValue(result.getString("fl_goescls")));
+    private static final String[] eventFields = { "event_starttime", "event_endtime", "kb_archivdate", "kb_archivid", "fl_goescls" };
+
+    private static EventDatabase.Event2Db readEvent(JsonParser parser, byte[] data, HashMap<String, String> dbTypes, HashMap<String, String> dbFields) throws IOException {
+        int offset = (int) parser.getTokenLocation().getByteOffset();
+        HashMap<String, String> values = readValues(parser, dbFields);
+        int length = (int) parser.getCurrentLocation().getByteOffset() - offset;
+
+        byte[] compressed;
+        try {
+            compressed = GZIPUtils.compress(data, offset, length);
+        } catch (IOException e) {
+            Log.error("compression error");
+            return null;
+        }
+
+        String goes = values.get("fl_goescls");
+        if (goes != null)
+            values.put("jhv_goesclass", String.valueOf(GOESLevel.getFloatValue(goes)));
+
+        try {
+            long start = TimeUtils.parse(values.get("event_starttime"));
+            long end = TimeUtils.parse(values.get("event_endtime"));
+            long archiv = TimeUtils.parse(values.get("kb_archivdate"));
+            String uid = values.get("kb_archivid");
+            if (uid == null)
+                return null;
 
-            String uid;
-            long start;
-            long end;
-            long archiv;
             ArrayList<JHVDatabaseParam> paramList = new ArrayList<>();
-            try {
-                start = TimeUtils.parse(result.getString("event_starttime"));
-                end = TimeUtils.parse(result.getString("event_endtime"));
-                archiv = TimeUtils.parse(result.getString("kb_archivdate"));
-                uid = result.getString("kb_archivid");
-
-                HashMap<String, String> dbFields = supplier.getGroup().getAllDatabaseFields();
-                for (Map.Entry<String, String> entry : dbFields.entrySet()) {
-                    String dbType = entry.getValue();
-                    String fieldName = entry.getKey();
-                    String lfieldName = fieldName.toLowerCase(Locale.ENGLISH);
-                    if (!result.isNull(lfieldName)) {
-                        switch (dbType) {
-                            case JHVDatabaseParam.DBINTTYPE:
-                                paramList.add(new JHVDatabaseParam(JHVDatabaseParam.DBINTTYPE, result.getInt(lfieldName), fieldName));
-                                break;
-                            case JHVDatabaseParam.DBSTRINGTYPE:
-                                paramList.add(new JHVDatabaseParam(JHVDatabaseParam.DBSTRINGTYPE, result.getString(lfieldName), fieldName));
-                                break;
-                            case JHVDatabaseParam.DBDOUBLETYPE:
-                                paramList.add(new JHVDatabaseParam(JHVDatabaseParam.DBDOUBLETYPE, result.getDouble(lfieldName), fieldName));
-                                break;
-                            default:
-                                break;
-                        }
+            for (Map.Entry<String, String> entry : dbFields.entrySet()) {
+                String value = values.get(entry.getKey());
+                if (value != null) {
+                    String fieldName = entry.getValue();
+                    switch (dbTypes.get(fieldName)) {
+                        case JHVDatabaseParam.DBINTTYPE:
+                            paramList.add(new JHVDatabaseParam(JHVDatabaseParam.DBINTTYPE, (int) Double.parseDouble(value), fieldName));
+                            break;
+                        case JHVDatabaseParam.DBSTRINGTYPE:
+                            paramList.add(new JHVDatabaseParam(JHVDatabaseParam.DBSTRINGTYPE, value, fieldName));
+                            break;
+                        case JHVDatabaseParam.DBDOUBLETYPE:
+                            paramList.add(new JHVDatabaseParam(JHVDatabaseParam.DBDOUBLETYPE, Double.parseDouble(value), fieldName));
+                            break;
+                        default:
+                            break;
                     }
                 }
-            } catch (Exception e) {
-                return false;
             }
-
-            event2db_list.add(new EventDatabase.Event2Db(compressed, start, end, archiv, uid, paramList));
+            return new EventDatabase.Event2Db(compressed, start, end, archiv, uid, paramList);
+        } catch (Exception e) {
+            return null;
         }
+    }
 
-        EventDatabase.dump_event2db(event2db_list, supplier);
-
-        return true;
+    // scalar members of the current object, restricted to the wanted ones if given; nested values are skipped
+    private static HashMap<String, String> readValues(JsonParser parser, HashMap<String, String> wanted) throws IOException {
+        HashMap<String, String> values = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token.isStructStart())
+                parser.skipChildren();
+            else if (token != JsonToken.VALUE_NULL && (wanted == null || wanted.containsKey(name) || isEventField(name)))
+                values.put(name, parser.getText());
+        }
+        return values;
     }
 
-    @Override
-    protected boolean parseAssociations(JSONObject eventJSON) {
-        JSONArray associations = eventJSON.getJSONArray("association");
-        int len = associations.length();
-        Pair<?,?>[] assocs = new Pair<?,?>[len];
-        for (int i = 0; i < len; i++) {
-            JSONObject asobj = associations.getJSONObject(i);
-            assocs[i] = new Pair<>(asobj.getString("first_ivorn"), asobj.getString("second_ivorn"));
+    private static boolean isEventField(String name) {
+        for (String field : eventFields) {
+            if (field.equals(name))
+                return true;
         }
-        return EventDatabase.dump_association2db((Pair<String,String>[]) assocs) != -1;
+        return false;
     }
 
     @Override
@@ -10,6 +10,7 @@ import java.util.Scanner;
 
 import org.helioviewer.jhv.astronomy.Position;
 import org.helioviewer.jhv.astronomy.Sun;
+import org.helioviewer.jhv.base.conversion.GOESLevel;
 import org.helioviewer.jhv.data.event.JHVEvent;
 import org.helioviewer.jhv.data.event.JHVEventParameter;
 import org.helioviewer.jhv.data.event.JHVPositionInformation;
@@ -31,6 +32,10 @@ public class HEKParser implements SWEKParser {
     public JHVEvent parseEventJSON(JSONObject json, SWEKSupplier supplier, int id, long start, long end, boolean full) throws JSONException {
         JHVEvent currentEvent = new JHVEvent(supplier, id, start, end);
 
+        // derived at download, the stored JSON is as received from the server
+        if (!json.isNull("fl_goescls"))
+            json.put("jhv_goesclass", GOESLevel.getFloatValue(json.optString("fl_goescls")));
+
         parseResult(json, currentEvent, full);
         currentEvent.finishParams();
 
@@ -6,15 +6,16 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
 
 import javax.swing.ImageIcon;
 
 import org.helioviewer.jhv.data.cache.JHVEventCache;
 import org.helioviewer.jhv.data.cache.JHVEventHandler;
 import org.helioviewer.jhv.data.cache.JHVRelatedEvents;
-import org.helioviewer.jhv.data.cache.SortedDateInterval;
 import org.helioviewer.jhv.data.event.JHVEventParameter;
 import org.helioviewer.jhv.data.event.SWEKSupplier;
 import org.helioviewer.jhv.time.TimeUtils;
@@ -33,6 +34,12 @@ public class EventTimelineRenderable extends AbstractTimelineRenderable implemen
     private static JHVRelatedEvents highlightedEvent = null;
     private static int highlightedEventPosition = -1;
 
+    private static final int SPACE_PER_LINE = 3;
+
+    // lanes of the cached events, recomputed only when the event cache changes
+    private static final HashMap<JHVRelatedEvents, Integer> lanes = new HashMap<>();
+    private static int lanesVersion = -1;
+
     public EventTimelineRenderable() {
 
     }
@@ -71,27 +78,22 @@ public class EventTimelineRenderable extends AbstractTimelineRenderable implemen
         highlightedEvent = null;
         highlightedEventPosition = -1;
 
-        Map<SWEKSupplier, SortedMap<SortedDateInterval, JHVRelatedEvents>> events = JHVEventCache.get(xAxis.start, xAxis.end, xAxis.start, xAxis.end).getAvailableEvents();
+        Map<SWEKSupplier, List<JHVRelatedEvents>> events = JHVEventCache.get(xAxis.start, xAxis.end, xAxis.start, xAxis.end).getAvailableEvents();
         if (events.isEmpty())
             return;
 
-        EventPlotConfiguration shouldRedraw = null;
+        if (lanesVersion != JHVEventCache.getVersion())
+            assignLanes();
+        // lanes below the plot wrap around to the top
+        int maxLanes = Math.max(1, (graphArea.height - DrawConstants.EVENT_OFFSET - SPACE_PER_LINE) / (2 * SPACE_PER_LINE) + 1);
 
-        ArrayList<Long> endDates = new ArrayList<>();
-        int nrLines = 0;
-        for (SortedMap<SortedDateInterval, JHVRelatedEvents> eventMap : events.values()) {
-            for (JHVRelatedEvents event : eventMap.values()) {
-                int i = 0;
-                while (i < nrLines && endDates.get(i) >= event.getStart()) {
-                    i++;
-                }
-                if (i == nrLines) {
-                    endDates.add(event.getEnd());
-                } else {
-                    endDates.set(i, event.getEnd());
-                }
-                int eventPosition = i;
-                nrLines = Math.max(nrLines, endDates.size());
+        EventPlotConfiguration shouldRedraw = null;
+        for (List<JHVRelatedEvents> eventList : events.values()) {
+            for (JHVRelatedEvents event : eventList) {
+                Integer lane = lanes.get(event);
+                if (lane == null)
+                    continue;
+                int eventPosition = lane % maxLanes;
 
                 int x0 = xAxis.value2pixel(graphArea.x, graphArea.width, event.getStart());
                 int x1 = xAxis.value2pixel(graphArea.x, graphArea.width, event.getEnd());
@@ -106,6 +108,28 @@ public class EventTimelineRenderable extends AbstractTimelineRenderable implemen
         eventUnderMouse = shouldRedraw;
     }
 
+    // first lane free at the start of each event, in order of start over all event types
+    private static void assignLanes() {
+        ArrayList<JHVRelatedEvents> all = JHVEventCache.getAll();
+        all.sort(Comparator.comparingLong(JHVRelatedEvents::getStart));
+        ArrayList<Long> endDates = new ArrayList<>();
+
+        lanes.clear();
+        for (JHVRelatedEvents event : all) {
+            int i = 0;
+            while (i < endDates.size() && endDates.get(i) >= event.getStart()) {
+                i++;
+            }
+            if (i == endDates.size()) {
+                endDates.add(event.getEnd());
+            } else {
+                endDates.set(i, event.getEnd());
+            }
+            lanes.put(event, i);
+        }
+        lanesVersion = JHVEventCache.getVersion();
+    }
+
     @Override
     public void drawHighlighted(Graphics2D g, Rectangle graphArea, TimeAxis xAxis, Point mousePosition) {
         if (mousePosition != null) {
@@ -178,7 +202,7 @@ public class EventTimelineRenderable extends AbstractTimelineRenderable implemen
         }
 
         static JHVRelatedEvents draw(Rectangle graphArea, JHVRelatedEvents event, int x0, int x1, int yPosition, Graphics2D g, Point mousePosition, boolean highlight) {
-            int spacePerLine = 3;
+            int spacePerLine = SPACE_PER_LINE;
             int y = graphArea.y + spacePerLine * 2 * yPosition + DrawConstants.EVENT_OFFSET;
             int w = Math.max(x1 - x0, 1);
             int h = spacePerLine;
@@ -16,6 +16,7 @@ import org.helioviewer.jhv.JHVDirectory;
 import org.helioviewer.jhv.database.EventDatabase;
 import org.helioviewer.jhv.log.Log;
 import org.jetbrains.annotations.NotNull;
+import org.sqlite.SQLiteConfig;
 
 public class JHVThread {
 
@@ -93,13 +94,58 @@ public class JHVThread {
             }
         }
 
+        // write-ahead log, syncing only at checkpoints, is enough for a cache
+        private static Connection openConnection(String filepath) throws SQLException {
+            Connection c = DriverManager.getConnection("jdbc:sqlite:" + filepath);
+            try (Statement statement = c.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute("PRAGMA temp_store=MEMORY");
+                statement.execute("PRAGMA cache_size=-16384"); // KB
+            }
+            return c;
+        }
+
+        private static final ThreadLocal<Connection> readConnection = new ThreadLocal<>();
+
+        // Connection of the calling thread for queries only; readers do not block the writer in WAL mode
+        public static Connection getReadConnection() {
+            Connection c = readConnection.get();
+            if (c == null && create()) { // the writer validates the schema first
+                try {
+                    SQLiteConfig config = new SQLiteConfig();
+                    config.setReadOnly(true);
+                    c = DriverManager.getConnection("jdbc:sqlite:" + getPath(), config.toProperties());
+                    readConnection.set(c);
+                } catch (SQLException e) {
+                    Log.error("Could not create database read connection" + e);
+                }
+            }
+            return c;
+        }
+
+        private static String getPath() {
+            return JHVDirectory.EVENTS.getPath() + "events.db";
+        }
+
         public static Connection getConnection() {
+            if (create()) {
+                try {
+                    connection.setAutoCommit(false);
+                } catch (SQLException e) {
+                    Log.error("Could not set autocommit off");
+                }
+            }
+            return connection;
+        }
+
+        private static synchronized boolean create() {
             if (connection == null) {
                 try {
-                    String filepath = JHVDirectory.EVENTS.getPath() + "events.db";
+                    String filepath = getPath();
                     File f = new File(filepath);
                     boolean fexist = f.canRead() && !f.isDirectory();
-                    connection = DriverManager.getConnection("jdbc:sqlite:" + filepath);
+                    connection = openConnection(filepath);
 
                     if (!fexist) {
                         createSchema();
@@ -122,7 +168,9 @@ public class JHVThread {
                         if (found_version != CURRENT_VERSION_SCHEMA || EventDatabase.config_hash != found_hash) {
                             connection.close();
                             new File(filepath).delete();
-                            connection = DriverManager.getConnection("jdbc:sqlite:" + filepath);
+                            new File(filepath + "-wal").delete();
+                            new File(filepath + "-shm").delete();
+                            connection = openConnection(filepath);
                             createSchema();
                         }
                     }
@@ -135,14 +183,7 @@ public class JHVThread {
                     connection = null;
                 }
             }
-            if (connection != null) {
-                try {
-                    connection.setAutoCommit(false);
-                } catch (SQLException e) {
-                    Log.error("Could not set autocommit off");
-                }
-            }
-            return connection;
+            return connection != null;
         }
     }
 
@@ -36,10 +36,11 @@ public class Band extends AbstractTimelineRenderable {
     private final RequestCache requestCache = new RequestCache();
     private int[] warnLevels;
     private String[] warnLabels;
-    private final BandCache bandCache = new BandCache();
+    private final BandCache bandCache;
 
     public Band(BandType _bandType) {
         bandType = _bandType;
+        bandCache = new BandCache(bandType.getCadence());
         optionsPanel = new BandOptionPanel(this);
         yAxis = new YAxis(bandType.getMin(), bandType.getMax(), bandType.getUnitLabel(), bandType.isLogScale());
         graphColor = BandColors.getNextColor();
@@ -51,6 +52,7 @@ public class Band extends AbstractTimelineRenderable {
             throw new Exception("Bandtype not defined");
 
         bandType = new BandType(jbandType);
+        bandCache = new BandCache(bandType.getCadence());
         optionsPanel = new BandOptionPanel(this);
         yAxis = new YAxis(bandType.getMin(), bandType.getMax(), bandType.getUnitLabel(), bandType.isLogScale());
 
@@ -158,7 +160,7 @@ public class Band extends AbstractTimelineRenderable {
 
         g.setColor(graphColor);
         for (BandCache.GraphPolyline line : graphPolylines) {
-            g.drawPolyline(line.xPoints, line.yPoints, line.yPoints.length);
+            g.drawPolyline(line.xPoints, line.yPoints, line.length);
         }
         for (int j = 0; j < warnLevels.length; j++) {
             g.drawLine(graphArea.x, warnLevels[j], graphArea.x + graphArea.width, warnLevels[j]);
@@ -181,7 +183,6 @@ public class Band extends AbstractTimelineRenderable {
         if (enabled) {
             Rectangle graphArea = DrawController.getGraphArea();
             updateWarnLevels(graphArea);
-            graphPolylines.clear();
             bandCache.createPolyLines(graphArea, DrawController.selectedAxis, yAxis, graphPolylines);
         }
     }
@@ -229,6 +230,7 @@ public class Band extends AbstractTimelineRenderable {
 
     @Override
     public void fetchData(TimeAxis selectedAxis) {
+        evict(selectedAxis);
         dataProvider.updateBand(this, selectedAxis.start, selectedAxis.end);
         updateGraphsData();
     }
@@ -240,10 +242,19 @@ public class Band extends AbstractTimelineRenderable {
 
     public void addToCache(float[] values, long[] dates) {
         bandCache.addToCache(values, dates);
+        evict(DrawController.selectedAxis);
         updateGraphsData();
         DrawController.drawRequest();
     }
 
+    // evicted ranges of downloaded bands are requested again when visible
+    private void evict(TimeAxis timeAxis) {
+        if (!bandType.getBaseURL().isEmpty()) {
+            for (Interval interval : bandCache.evict(timeAxis))
+                requestCache.removeRequestedInterval(interval.start, interval.end);
+        }
+    }
+
     @Override
     public boolean hasDataColor() {
         return true;
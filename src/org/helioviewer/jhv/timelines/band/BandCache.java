@@ -3,11 +3,14 @@ package org.helioviewer.jhv.timelines.band;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import org.helioviewer.jhv.base.interval.Interval;
 import org.helioviewer.jhv.opengl.GLInfo;
-import org.helioviewer.jhv.time.TimeUtils;
 import org.helioviewer.jhv.timelines.draw.DrawConstants;
 import org.helioviewer.jhv.timelines.draw.TimeAxis;
 import org.helioviewer.jhv.timelines.draw.YAxis;
@@ -16,19 +19,36 @@ import org.json.JSONObject;
 
 class BandCache {
 
-    private static final long DAYS_PER_CHUNK = 8;
-    private static final long MILLIS_PER_TICK = 60000;
-    private static final long CHUNKED_SIZE = TimeUtils.DAY_IN_MILLIS / MILLIS_PER_TICK * DAYS_PER_CHUNK;
-    private static final long MILLIS_PER_CHUNK = TimeUtils.DAY_IN_MILLIS * DAYS_PER_CHUNK;
-    private static final int MAX_LEVEL = 12;
+    private static final int CHUNKED_SIZE = 11520; // ticks per chunk, eight days at a one minute cadence
     private static final int FACTOR_STEP = 2;
+    // the coarsest level holds a single bucket per chunk, whatever the cadence
+    private static final int MAX_LEVEL = 32 - Integer.numberOfLeadingZeros(CHUNKED_SIZE);
+    private static final int MAX_CHUNKS = 256;
+    // a window wider than MAX_CHUNKS chunks is drawn at this level or coarser for plots up to CHUNKED_SIZE pixels wide
+    private static final int COMPACT_LEVEL = 8;
+
+    private final long millisPerTick;
+    private final long millisPerChunk;
+    private final long[] millisPerLevelTick = new long[MAX_LEVEL];
 
     private boolean hasData;
 
     private final HashMap<Long, DataChunk> cacheMap = new HashMap<>();
 
-    private static long date2key(long date) {
-        return date / MILLIS_PER_CHUNK;
+    // chunks hold a fixed number of ticks at the native cadence of the band
+    BandCache(long cadence) {
+        millisPerTick = Math.max(1, cadence);
+        millisPerChunk = millisPerTick * CHUNKED_SIZE;
+
+        long tick = millisPerTick;
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            millisPerLevelTick[i] = tick;
+            tick *= FACTOR_STEP;
+        }
+    }
+
+    private long date2key(long date) {
+        return date / millisPerChunk;
     }
 
     public boolean hasData() {
@@ -41,13 +61,57 @@ class BandCache {
         }
         for (int i = 0; i < values.length; i++) {
             long key = date2key(dates[i]);
-            DataChunk cache = cacheMap.computeIfAbsent(key, DataChunk::new);
+            DataChunk cache = cacheMap.computeIfAbsent(key, k -> new DataChunk(k * millisPerChunk, millisPerLevelTick));
             if (values[i] > DrawConstants.DISCARD_LEVEL_LOW && values[i] < DrawConstants.DISCARD_LEVEL_HIGH) {
-                cache.setValue((int) ((dates[i] % MILLIS_PER_CHUNK) / MILLIS_PER_TICK), values[i]);
+                cache.setValue((int) ((dates[i] % millisPerChunk) / millisPerTick), values[i]);
             }
         }
     }
 
+    // drops the chunks farthest from the visible window beyond the budget, returns the dropped intervals;
+    // the visible chunks of a window wider than the budget keep only a coarse level, those are dropped
+    // once the window fits the budget again such that they are loaded at full resolution
+    List<Interval> evict(TimeAxis timeAxis) {
+        long keyStart = date2key(timeAxis.start);
+        long keyEnd = date2key(timeAxis.end);
+        boolean compact = keyEnd - keyStart + 1 > MAX_CHUNKS;
+
+        ArrayList<Interval> evicted = new ArrayList<>();
+        Iterator<Map.Entry<Long, DataChunk>> it = cacheMap.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, DataChunk> entry = it.next();
+            long key = entry.getKey();
+            if (key < keyStart || key > keyEnd)
+                continue;
+
+            DataChunk chunk = entry.getValue();
+            if (compact) {
+                chunk.compact();
+            } else if (chunk.isCompacted()) {
+                it.remove();
+                evicted.add(new Interval(key * millisPerChunk, (key + 1) * millisPerChunk));
+            }
+        }
+
+        int excess = cacheMap.size() - MAX_CHUNKS;
+        if (excess <= 0)
+            return evicted;
+
+        ArrayList<Long> keys = new ArrayList<>();
+        for (Long key : cacheMap.keySet()) {
+            if (key < keyStart || key > keyEnd)
+                keys.add(key);
+        }
+        keys.sort(Comparator.comparingLong((Long key) -> key < keyStart ? keyStart - key : key - keyEnd).reversed());
+
+        for (int i = 0; i < excess && i < keys.size(); i++) {
+            long key = keys.get(i);
+            cacheMap.remove(key);
+            evicted.add(new Interval(key * millisPerChunk, (key + 1) * millisPerChunk));
+        }
+        return evicted;
+    }
+
     public float[] getBounds(TimeAxis timeAxis) {
         float min = Float.MAX_VALUE;
         float max = Float.MIN_VALUE;
@@ -60,74 +124,102 @@ class BandCache {
             if (cache == null) {
                 continue;
             }
-            float[] values = cache.getValues(0);
-            long[] dates = cache.getDates(0);
-
-            for (int i = 0; i < values.length; i++) {
-                float value = values[i];
-                if (value != Float.MIN_VALUE && timeAxis.start <= dates[i] && dates[i] <= timeAxis.end) {
-                    min = Math.min(value, min);
-                    max = Math.max(value, max);
+            int level = cache.getMinLevel();
+            float[] lmin, lmax;
+            if (level == 0) {
+                lmin = lmax = cache.getValues();
+            } else {
+                DataChunk.Level l = cache.getLevel(level);
+                lmin = l.min;
+                lmax = l.max;
+            }
+
+            for (int i = 0; i < lmax.length; i++) {
+                long date = cache.getDate(level, i);
+                if (lmax[i] != Float.MIN_VALUE && timeAxis.start <= date && date <= timeAxis.end) {
+                    min = Math.min(lmin[i], min);
+                    max = Math.max(lmax[i], max);
                 }
             }
         }
         return new float[] { min, max };
     }
 
+    // reuses the polylines already in the list and their point arrays
     void createPolyLines(Rectangle graphArea, TimeAxis timeAxis, YAxis yAxis, ArrayList<GraphPolyline> graphPolylines) {
         long keyEnd = date2key(timeAxis.end);
         long key = date2key(timeAxis.start);
         int level = 0;
         double factor = 1;
-        double elsz = 1. * MILLIS_PER_CHUNK / CHUNKED_SIZE * factor;
+        double elsz = 1. * millisPerTick * factor;
         double noelements = (timeAxis.end - timeAxis.start) / elsz;
 
         double graphWidth = graphArea.width * GLInfo.pixelScaleFloat[0];
         while (level < MAX_LEVEL - 1 && noelements > graphWidth) {
             level++;
             factor *= FACTOR_STEP;
-            elsz = 1. * MILLIS_PER_CHUNK / CHUNKED_SIZE * factor;
+            elsz = 1. * millisPerTick * factor;
             noelements = (timeAxis.end - timeAxis.start) / elsz;
         }
-        ArrayList<Integer> tvalues = new ArrayList<>();
-        ArrayList<Integer> tdates = new ArrayList<>();
+
+        int used = 0;
+        GraphPolyline line = null;
         while (key <= keyEnd) {
             DataChunk cache = cacheMap.get(key);
             key++;
             if (cache == null) {
                 continue;
             }
-            float[] values = cache.getValues(level);
-            long[] dates = cache.getDates(level);
-            int i = 0;
-            while (i < values.length) {
-                float value = values[i];
-                if (value <= Float.MIN_VALUE && !tvalues.isEmpty()) {
-                    graphPolylines.add(new GraphPolyline(tdates, tvalues));
-                    tvalues.clear();
-                    tdates.clear();
-                } else if (value > Float.MIN_VALUE) {
-                    tdates.add(timeAxis.value2pixel(graphArea.x, graphArea.width, dates[i]));
-                    tvalues.add(yAxis.value2pixel(graphArea.y, graphArea.height, value));
+
+            int chunkLevel = Math.max(level, cache.getMinLevel());
+            float[] first, min, max, last;
+            if (chunkLevel == 0) {
+                first = min = max = last = cache.getValues();
+            } else {
+                DataChunk.Level l = cache.getLevel(chunkLevel);
+                first = l.first;
+                min = l.min;
+                max = l.max;
+                last = l.last;
+            }
+
+            for (int i = 0; i < first.length; i++) {
+                if (first[i] <= Float.MIN_VALUE) {
+                    line = null;
+                } else {
+                    if (line == null) {
+                        if (used == graphPolylines.size())
+                            graphPolylines.add(new GraphPolyline());
+                        line = graphPolylines.get(used++);
+                        line.length = 0;
+                    }
+                    // the vertical segments at x span the whole range of the bucket
+                    int x = timeAxis.value2pixel(graphArea.x, graphArea.width, cache.getDate(chunkLevel, i));
+                    line.add(x, yAxis.value2pixel(graphArea.y, graphArea.height, first[i]));
+                    if (chunkLevel != 0) {
+                        line.add(x, yAxis.value2pixel(graphArea.y, graphArea.height, min[i]));
+                        line.add(x, yAxis.value2pixel(graphArea.y, graphArea.height, max[i]));
+                        line.add(x, yAxis.value2pixel(graphArea.y, graphArea.height, last[i]));
+                    }
                 }
-                i++;
             }
         }
-        if (!tvalues.isEmpty()) {
-            graphPolylines.add(new GraphPolyline(tdates, tvalues));
-        }
+
+        int size = graphPolylines.size();
+        while (size > used)
+            graphPolylines.remove(--size);
     }
 
     public float getValue(long ts) {
         long key = date2key(ts);
         DataChunk cache = cacheMap.get(key);
         if (cache != null) {
-            long[] dates = cache.getDates(0);
-            int len = dates.length;
-            int idx = (int) ((len - 1) * 1. * (ts - dates[0]) / (dates[len - 1] - dates[0]) + 0.5);
+            int level = cache.getMinLevel();
+            float[] values = level == 0 ? cache.getValues() : cache.getLevel(level).max;
+            int idx = (int) ((ts - cache.getDate(level, 0)) / (double) millisPerLevelTick[level] + (level == 0 ? 0.5 : 0));
 
-            if (idx >= 0 && idx < len) {
-                return cache.getValues(0)[idx];
+            if (idx >= 0 && idx < values.length) {
+                return values[idx];
             }
         }
         return Float.MIN_VALUE;
@@ -140,72 +232,170 @@ class BandCache {
         jo.put("data", ja);
     }
 
+    // only the full resolution is stored, the coarser levels are derived when first drawn;
+    // they keep the first, minimum, maximum and last value of each bucket (M4),
+    // such that the decimated plot covers the same pixels as the full one;
+    // dates follow from the chunk start and the level;
+    // a compacted chunk keeps only COMPACT_LEVEL and the levels above
     private static class DataChunk {
-        private final float[][] values = new float[MAX_LEVEL][];
-        private final long[][] dates = new long[MAX_LEVEL][];
-
-        DataChunk(long key) {
-            int factor = 1;
-            for (int i = 0; i < MAX_LEVEL; i++) {
-                values[i] = new float[(int) CHUNKED_SIZE / factor];
-                Arrays.fill(values[i], Float.MIN_VALUE);
-                dates[i] = new long[(int) CHUNKED_SIZE / factor];
-                factor *= FACTOR_STEP;
-            }
 
-            long startdate = key * MILLIS_PER_CHUNK;
-            factor = 1;
-            for (int j = 0; j < values.length; j++) {
-                for (int i = 0; i < values[j].length; i++) {
-                    dates[j][i] = startdate + i * MILLIS_PER_TICK * factor;
-                }
-                factor *= FACTOR_STEP;
-            }
+        private final long startDate;
+        private final long[] millisPerLevelTick;
+        private final Level[] levels = new Level[MAX_LEVEL];
+        private float[] values;
+        private int minLevel;
+
+        DataChunk(long _startDate, long[] _millisPerLevelTick) {
+            startDate = _startDate;
+            millisPerLevelTick = _millisPerLevelTick;
+            values = new float[CHUNKED_SIZE];
+            Arrays.fill(values, Float.MIN_VALUE);
         }
 
-        void setValue(int minuteOfDay, float value) {
-            int factor = 1;
-            for (int i = 0; i < values.length; i++) {
-                int idx = minuteOfDay / factor;
-                if (idx >= values[i].length) {
-                    idx = values[i].length - 1;
+        void setValue(int tick, float value) {
+            if (values == null) {
+                Level l = levels[minLevel];
+                int idx = (int) Math.min(tick / (millisPerLevelTick[minLevel] / millisPerLevelTick[0]), l.first.length - 1);
+                if (l.first[idx] <= Float.MIN_VALUE) {
+                    l.first[idx] = l.min[idx] = l.max[idx] = value;
+                } else {
+                    l.min[idx] = Math.min(l.min[idx], value);
+                    l.max[idx] = Math.max(l.max[idx], value);
                 }
-                values[i][idx] = Math.max(values[i][idx], value);
-                factor *= FACTOR_STEP;
+                l.last[idx] = value;
+            } else {
+                values[tick] = Math.max(values[tick], value);
             }
+            Arrays.fill(levels, minLevel + 1, MAX_LEVEL, null);
+        }
 
+        void compact() {
+            if (values == null)
+                return;
+            getLevel(COMPACT_LEVEL);
+            for (int i = 1; i < COMPACT_LEVEL; i++)
+                levels[i] = null;
+            values = null;
+            minLevel = COMPACT_LEVEL;
         }
 
-        float[] getValues(int level) {
-            return values[level];
+        boolean isCompacted() {
+            return values == null;
+        }
+
+        int getMinLevel() {
+            return minLevel;
+        }
+
+        float[] getValues() {
+            return values;
+        }
+
+        // derived in one pass from the finest data held, the levels in between are not kept
+        Level getLevel(int level) {
+            Level l = levels[level];
+            if (l == null) {
+                float[] pFirst, pMin, pMax, pLast;
+                if (values == null) {
+                    Level p = levels[minLevel];
+                    pFirst = p.first;
+                    pMin = p.min;
+                    pMax = p.max;
+                    pLast = p.last;
+                } else {
+                    pFirst = pMin = pMax = pLast = values;
+                }
+                int step = (int) (millisPerLevelTick[level] / millisPerLevelTick[values == null ? minLevel : 0]);
+
+                l = new Level(CHUNKED_SIZE / (int) (millisPerLevelTick[level] / millisPerLevelTick[0]));
+                int end = l.first.length - 1;
+                for (int i = 0; i < pFirst.length; i++) {
+                    if (pFirst[i] <= Float.MIN_VALUE)
+                        continue;
+
+                    int idx = Math.min(i / step, end);
+                    if (l.first[idx] <= Float.MIN_VALUE) {
+                        l.first[idx] = pFirst[i];
+                        l.min[idx] = pMin[i];
+                        l.max[idx] = pMax[i];
+                    } else {
+                        l.min[idx] = Math.min(l.min[idx], pMin[i]);
+                        l.max[idx] = Math.max(l.max[idx], pMax[i]);
+                    }
+                    l.last[idx] = pLast[i];
+                }
+                levels[level] = l;
+            }
+            return l;
         }
 
-        long[] getDates(int level) {
-            return dates[level];
+        long getDate(int level, int idx) {
+            return startDate + idx * millisPerLevelTick[level];
         }
 
         void serialize(JSONArray ja, double f) {
-            long[] d = dates[0];
-            float[] v = values[0];
+            float[] v = values == null ? levels[minLevel].max : values;
             for (int i = 0; i < v.length; i++)
-                ja.put(new JSONArray().put(d[i] / 1000).put(f * v[i]));
+                ja.put(new JSONArray().put(getDate(minLevel, i) / 1000).put(f * v[i]));
         }
+
+        private static class Level {
+
+            final float[] first;
+            final float[] min;
+            final float[] max;
+            final float[] last;
+
+            // empty buckets hold Float.MIN_VALUE in all arrays, as the full resolution does
+            Level(int length) {
+                first = new float[length];
+                Arrays.fill(first, Float.MIN_VALUE);
+                min = first.clone();
+                max = first.clone();
+                last = first.clone();
+            }
+
+        }
+
     }
 
     static class GraphPolyline {
 
-        public final int[] xPoints;
-        public final int[] yPoints;
+        public int[] xPoints = new int[64];
+        public int[] yPoints = new int[64];
+        public int length;
+
+        private int column; // index of the first point at the x of the last point
+        private int low;
+        private int high;
 
-        GraphPolyline(List<Integer> dates, List<Integer> values) {
-            int llen = dates.size();
-            xPoints = new int[llen];
-            yPoints = new int[llen];
-            for (int j = 0; j < llen; j++) {
-                xPoints[j] = dates.get(j);
-                yPoints[j] = values.get(j);
+        // consecutive duplicate points are dropped, the points falling on one pixel column
+        // are reduced to the first, lowest, highest and last of them
+        void add(int x, int y) {
+            if (length != 0 && xPoints[length - 1] == x) {
+                if (yPoints[length - 1] == y)
+                    return;
+                low = Math.min(low, y);
+                high = Math.max(high, y);
+                if (length - column == 4) {
+                    yPoints[column + 1] = low;
+                    yPoints[column + 2] = high;
+                    yPoints[column + 3] = y;
+                    return;
+                }
+            } else {
+                column = length;
+                low = high = y;
+            }
+            if (length == xPoints.length) {
+                xPoints = Arrays.copyOf(xPoints, 2 * length);
+                yPoints = Arrays.copyOf(yPoints, 2 * length);
             }
+            xPoints[length] = x;
+            yPoints[length] = y;
+            length++;
         }
+
     }
 
 }
@@ -49,6 +49,7 @@ public class BandType {
     private double min = 0;
     private double max = 1;
     private boolean isLog = true;
+    private long cadence = 60000; // ms
 
     private final JSONObject json;
 
@@ -70,6 +71,10 @@ public class BandType {
             max = range.optDouble(1, max);
         }
 
+        double cadenceSec = jo.optDouble("cadence", Double.NaN);
+        if (cadenceSec > 0)
+            cadence = Math.max(1, (long) (cadenceSec * 1000));
+
         String scale = jo.optString("scale", "");
         if ("logarithmic".equals(scale))
             isLog = true;
@@ -113,6 +118,10 @@ public class BandType {
         return isLog;
     }
 
+    public long getCadence() {
+        return cadence;
+    }
+
     public String getBaseURL() {
         return baseURL;
     }
@@ -0,0 +1,86 @@
+package org.helioviewer.jhv.view.jp2view;
+
+import org.helioviewer.jhv.Settings;
+import org.helioviewer.jhv.imagedata.ImageBufferPool;
+import org.helioviewer.jhv.imagedata.ImageData;
+import org.helioviewer.jhv.imagedata.SubImage;
+import org.helioviewer.jhv.view.jp2view.image.ImageParams;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+
+// Decoded frames of all JPEG2000 views, bounded by their share of the direct memory budget of ImageBufferPool
+class DecodeCache {
+
+    private static final Cache<Key, ImageData> cache = CacheBuilder.newBuilder().
+        maximumWeight(budget() / 1024). // KB
+        weigher((Key k, ImageData v) -> (int) (v.getMemorySize() / 1024) + 1).
+        removalListener((RemovalNotification<Key, ImageData> n) -> n.getValue().release()).
+        build();
+
+    // cache.decode.size (MB) can lower the budget
+    private static long budget() {
+        String size = Settings.getSingletonInstance().getProperty("cache.decode.size");
+        return size == null ? ImageBufferPool.CACHE_BUDGET : Math.min(ImageBufferPool.CACHE_BUDGET, Long.parseLong(size) * 1024 * 1024);
+    }
+
+    // the returned image is retained, the caller has to release it
+    static ImageData get(JP2View view, ImageParams params) {
+        ImageData data = cache.getIfPresent(new Key(view, params));
+        return data != null && data.retain() ? data : null;
+    }
+
+    // only frames complete at their resolution level should be put
+    static void put(JP2View view, ImageParams params, ImageData data) {
+        if (data.retain())
+            cache.put(new Key(view, params), data);
+    }
+
+    static boolean contains(JP2View view, ImageParams params) {
+        return cache.asMap().containsKey(new Key(view, params));
+    }
+
+    static void invalidate(JP2View view) {
+        cache.asMap().keySet().removeIf(k -> k.view == view);
+    }
+
+    private static class Key {
+
+        final JP2View view;
+        final int frame;
+        final int level;
+        final SubImage subImage;
+        final double factor;
+
+        Key(JP2View _view, ImageParams params) {
+            view = _view;
+            frame = params.frame;
+            level = params.resolution.level;
+            subImage = params.subImage;
+            factor = params.factor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return view == k.view && frame == k.frame && level == k.level && factor == k.factor && subImage.equals(k.subImage);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(view);
+            result = 31 * result + frame;
+            result = 31 * result + level;
+            result = 31 * result + subImage.x;
+            result = 31 * result + subImage.y;
+            result = 31 * result + subImage.width;
+            result = 31 * result + subImage.height;
+            return 31 * result + Double.hashCode(factor);
+        }
+
+    }
+
+}
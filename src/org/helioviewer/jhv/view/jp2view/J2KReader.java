@@ -1,10 +1,24 @@
 package org.helioviewer.jhv.view.jp2view;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.helioviewer.jhv.gui.UITimer;
 import org.helioviewer.jhv.log.Log;
+import org.helioviewer.jhv.threads.JHVThread;
 import org.helioviewer.jhv.view.jp2view.cache.CacheStatus;
+import org.helioviewer.jhv.view.jp2view.cache.JPIPDiskCache;
 import org.helioviewer.jhv.view.jp2view.concurrency.BooleanSignal;
 import org.helioviewer.jhv.view.jp2view.image.ImageParams;
 import org.helioviewer.jhv.view.jp2view.io.jpip.JPIPConstants;
@@ -29,10 +43,18 @@ class J2KReader implements Runnable {
 
     private final CacheStatus cacheStatusRef;
 
+    private final JPIPDiskCache diskCacheRef;
+
     private JPIPSocket socket;
 
     private final BooleanSignal readerSignal = new BooleanSignal(false);
 
+    // Additional connections used to fetch layer ranges in parallel
+    private final JPIPSocket[] helperSockets = new JPIPSocket[JPIPConstants.MAX_READER_SOCKETS - 1];
+    private final ExecutorService helpers;
+    // tells the helpers to stop after the step in flight
+    private volatile boolean stopHelpers;
+
     private final int numFrames;
 
     J2KReader(JP2View _viewRef) {
@@ -41,8 +63,10 @@ class J2KReader implements Runnable {
         numFrames = viewRef.getMaximumFrameNumber() + 1;
         cacheRef = viewRef.getReaderCache();
         cacheStatusRef = viewRef.getCacheStatus();
+        diskCacheRef = viewRef.getDiskCache();
         socket = viewRef.getSocket();
 
+        helpers = Executors.newFixedThreadPool(helperSockets.length, new JHVThread.NamedThreadFactory("Reader helper " + viewRef.getName()));
         myThread = new Thread(this, "Reader " + viewRef.getName());
         myThread.setDaemon(true);
         myThread.start();
@@ -54,10 +78,12 @@ class J2KReader implements Runnable {
             return;
         isAbolished = true;
 
+        helpers.shutdownNow();
         while (myThread.isAlive()) {
             try {
                 if (socket != null)
                     socket.close(); // try to unblock i/o
+                closeHelpers();
                 myThread.interrupt();
                 myThread.join(100);
             } catch (Exception e) { // avoid exit from loop
@@ -70,6 +96,21 @@ class J2KReader implements Runnable {
         readerSignal.signal(params);
     }
 
+    private void setFrameComplete(int frame, int level) {
+        cacheStatusRef.setFrameComplete(frame, level);
+        if (diskCacheRef != null)
+            diskCacheRef.setFrameComplete(frame, level);
+    }
+
+    private boolean isStepComplete(int step, int level) {
+        for (int j = step * JPIPConstants.MAX_REQ_LAYERS; j < Math.min((step + 1) * JPIPConstants.MAX_REQ_LAYERS, numFrames); j++) {
+            AtomicBoolean status = cacheStatusRef.getFrameStatus(j, level);
+            if (status == null || !status.get())
+                return false;
+        }
+        return true;
+    }
+
     private static String createQuery(String fSiz, int iniLayer, int endLayer) {
         return JPIPQuery.create(JPIPConstants.MAX_REQUEST_LEN, "context", "jpxl<" + iniLayer + '-' + endLayer + '>', "fsiz", fSiz + ",closest", "rsiz", fSiz, "roff", "0,0");
     }
@@ -95,6 +136,149 @@ class J2KReader implements Runnable {
         return stepQuerys;
     }
 
+    // returns true if reading was interrupted
+    private boolean readFrame(String query, ImageParams params) throws IOException {
+        int frame = params.frame;
+        int level = params.resolution.level;
+
+        while (true) {
+            // receive and add data to cache
+            JPIPResponse res = socket.send(query, cacheRef);
+            // react if query complete
+            boolean complete = res.isResponseComplete();
+            if (complete) {
+                setFrameComplete(frame, level);
+                viewRef.signalRenderFromReader(params); // refresh current image
+            } else
+                cacheStatusRef.setFramePartial(frame);
+            UITimer.cacheStatusChanged();
+
+            // check whether caching has to be interrupted
+            if (readerSignal.isSignaled() || Thread.interrupted())
+                return true;
+            if (complete)
+                return false;
+        }
+    }
+
+    // Distributes the queued layer ranges over the reader socket and the helper sockets, returns true if reading was interrupted
+    private boolean readSteps(String[] stepQuerys, Queue<Integer> steps, int level) throws IOException {
+        stopHelpers = false;
+        int numHelpers = Math.min(helperSockets.length, steps.size() - 1);
+        ArrayList<Future<Boolean>> futures = new ArrayList<>(numHelpers);
+        for (int i = 0; i < numHelpers; i++) {
+            int idx = i;
+            futures.add(helpers.submit(() -> readHelperSteps(idx, stepQuerys, steps, level)));
+        }
+
+        boolean stopReading = false;
+        try {
+            do {
+                stopReading = readSteps(socket, stepQuerys, steps, level) || Thread.interrupted();
+                for (Future<Boolean> future : futures) {
+                    try {
+                        stopReading |= future.get();
+                    } catch (ExecutionException e) {
+                        Log.error("J2KReader.readSteps() > Helper failed", e.getCause());
+                    }
+                }
+                futures.clear();
+                // pick up the steps put back by failed helpers
+            } while (!stopReading && !steps.isEmpty());
+        } catch (InterruptedException e) {
+            stopReading = true;
+        } finally {
+            // the next round reuses the helper sockets, which are not safe for concurrent use
+            if (!futures.isEmpty()) {
+                stopHelpers = true;
+                awaitHelpers(futures);
+            }
+        }
+        return stopReading;
+    }
+
+    private void awaitHelpers(List<Future<Boolean>> futures) {
+        boolean interrupted = false;
+        for (Future<Boolean> future : futures) {
+            while (!isAbolished) { // abolish closes the sockets and drops the queued tasks
+                try {
+                    future.get(100, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (TimeoutException ignore) {
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private boolean readHelperSteps(int idx, String[] stepQuerys, Queue<Integer> steps, int level) {
+        try {
+            JPIPSocket helperSocket = helperSockets[idx];
+            if (helperSocket == null || helperSocket.isClosed()) {
+                helperSocket = new JPIPSocket(viewRef.getURI(), cacheRef);
+                helperSockets[idx] = helperSocket;
+            }
+            return readSteps(helperSocket, stepQuerys, steps, level);
+        } catch (IOException e) {
+            closeHelper(idx);
+            return false;
+        }
+    }
+
+    private boolean readSteps(JPIPSocket stepSocket, String[] stepQuerys, Queue<Integer> steps, int level) throws IOException {
+        Integer step;
+        while ((step = steps.poll()) != null) {
+            JPIPResponse res;
+            try {
+                // receive and add data to cache
+                res = stepSocket.send(stepQuerys[step], cacheRef);
+            } catch (IOException e) {
+                steps.add(step); // give it to another socket
+                throw e;
+            }
+
+            // tell the cache status
+            boolean complete = res.isResponseComplete();
+            for (int j = step * JPIPConstants.MAX_REQ_LAYERS; j < Math.min((step + 1) * JPIPConstants.MAX_REQ_LAYERS, numFrames); j++) {
+                if (complete)
+                    setFrameComplete(j, level);
+                else
+                    cacheStatusRef.setFramePartial(j);
+            }
+            // incomplete steps go back to the end of the queue
+            if (!complete)
+                steps.add(step);
+
+            UITimer.cacheStatusChanged();
+
+            // check whether caching has to be interrupted
+            if (readerSignal.isSignaled() || stopHelpers || Thread.currentThread().isInterrupted())
+                return true;
+        }
+        return false;
+    }
+
+    private void closeHelper(int idx) {
+        JPIPSocket helperSocket = helperSockets[idx];
+        if (helperSocket != null) {
+            try {
+                helperSocket.close();
+            } catch (IOException ignore) {
+            }
+            helperSockets[idx] = null;
+        }
+    }
+
+    private void closeHelpers() {
+        for (int i = 0; i < helperSockets.length; i++)
+            closeHelper(i);
+    }
+
     @Override
     public void run() {
         while (!isAbolished) {
@@ -124,74 +308,30 @@ class J2KReader implements Runnable {
                 }
 
                 // build query based on strategy
-                int currentStep;
-                String[] stepQuerys;
+                boolean stopReading;
                 String fSiz = params.resolution.width + "," + params.resolution.height;
                 if (singleFrame) {
-                    stepQuerys = new String[] { createQuery(fSiz, frame, frame) };
-                    currentStep = 0;
+                    stopReading = readFrame(createQuery(fSiz, frame, frame), params);
                 } else {
-                    stepQuerys = createMultiQuery(fSiz);
+                    String[] stepQuerys = createMultiQuery(fSiz);
 
+                    int currentStep;
                     int partial = cacheStatusRef.getPartialUntil();
                     if (partial < numFrames - 1)
                         currentStep = partial / JPIPConstants.MAX_REQ_LAYERS;
                     else
                         currentStep = frame / JPIPConstants.MAX_REQ_LAYERS;
-                }
 
-                // send queries until everything is complete or caching is interrupted
-                int completeSteps = 0;
-                boolean stopReading = false;
-                while (!stopReading && completeSteps < stepQuerys.length) {
-                    if (currentStep >= stepQuerys.length)
-                        currentStep = 0;
-
-                    // if query is already complete, go to next step
-                    if (stepQuerys[currentStep] == null) {
-                        currentStep++;
-                        continue;
-                    }
-
-                    // receive and add data to cache
-                    JPIPResponse res = socket.send(stepQuerys[currentStep], cacheRef);
-                    // react if query complete
-                    if (res.isResponseComplete()) {
-                        // mark query as complete
-                        completeSteps++;
-                        stepQuerys[currentStep] = null;
-
-                        // tell the cache status
-                        if (singleFrame) {
-                            cacheStatusRef.setFrameComplete(frame, level);
-                            viewRef.signalRenderFromReader(params); // refresh current image
-                        } else {
-                            for (int j = currentStep * JPIPConstants.MAX_REQ_LAYERS; j < Math.min((currentStep + 1) * JPIPConstants.MAX_REQ_LAYERS, numFrames); j++) {
-                                cacheStatusRef.setFrameComplete(j, level);
-                            }
-                        }
-                    } else {
-                        // tell the cache status
-                        if (singleFrame) {
-                            cacheStatusRef.setFramePartial(frame);
-                        } else {
-                            for (int j = currentStep * JPIPConstants.MAX_REQ_LAYERS; j < Math.min((currentStep + 1) * JPIPConstants.MAX_REQ_LAYERS, numFrames); j++) {
-                                cacheStatusRef.setFramePartial(j);
-                            }
-                        }
-                    }
-
-                    UITimer.cacheStatusChanged();
-
-                    // select next query based on strategy
-                    if (!singleFrame)
-                        currentStep++;
-
-                    // check whether caching has to be interrupted
-                    if (readerSignal.isSignaled() || Thread.interrupted()) {
-                        stopReading = true;
+                    // queue the steps starting from the current one, skip those already complete, e.g., restored from the disk cache
+                    ConcurrentLinkedQueue<Integer> steps = new ConcurrentLinkedQueue<>();
+                    for (int i = 0; i < stepQuerys.length; i++) {
+                        int step = (currentStep + i) % stepQuerys.length;
+                        if (!isStepComplete(step, level))
+                            steps.add(step);
                     }
+                    stopReading = readSteps(stepQuerys, steps, level);
                 }
+
                 // suicide if fully done
                 if (cacheStatusRef.isComplete(0)) {
                     viewRef.setDownloading(false);
@@ -199,6 +339,7 @@ class J2KReader implements Runnable {
                         socket.close();
                     } catch (IOException ignore) {
                     }
+                    closeHelpers();
                     return;
                 }
 
@@ -4,6 +4,7 @@ import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
 import kdu_jni.KduException;
+import kdu_jni.Kdu_cache;
 import kdu_jni.Kdu_compositor_buf;
 import kdu_jni.Kdu_coords;
 import kdu_jni.Kdu_dims;
@@ -13,6 +14,7 @@ import kdu_jni.Kdu_region_compositor;
 import kdu_jni.Kdu_thread_env;
 
 import org.helioviewer.jhv.imagedata.ARGBInt32ImageData;
+import org.helioviewer.jhv.imagedata.ImageBufferPool;
 import org.helioviewer.jhv.imagedata.ImageData;
 import org.helioviewer.jhv.imagedata.Single8ImageData;
 import org.helioviewer.jhv.imagedata.SubImage;
@@ -25,8 +27,10 @@ class J2KRender implements Runnable {
     private static final int MAX_INACTIVE_LAYERS = 200;
 
     private static final ThreadLocal<int[]> bufferLocal = ThreadLocal.withInitial(() -> new int[KakaduConstants.MAX_RENDER_SAMPLES]);
-    private static final ThreadLocal<Kdu_thread_env> threadLocal = ThreadLocal.withInitial(J2KRender::createThreadEnv);
+    private static final ThreadLocal<byte[]> byteLocal = ThreadLocal.withInitial(() -> new byte[KakaduConstants.MAX_RENDER_SAMPLES]);
+    private static final ThreadLocal<Kdu_thread_env> threadLocal = new ThreadLocal<>();
     private static final ThreadLocal<KakaduEngine> engineLocal = new ThreadLocal<>();
+    private static final ThreadLocal<Kdu_cache> cacheLocal = new ThreadLocal<>();
 
     private static final int[] firstComponent = { 0 };
 
@@ -37,10 +41,14 @@ class J2KRender implements Runnable {
 
     private final boolean discard;
 
-    J2KRender(JP2View _viewRef, ImageParams _currParams, boolean _discard) {
+    // decoded ahead of playback
+    private final boolean ahead;
+
+    J2KRender(JP2View _viewRef, ImageParams _currParams, boolean _discard, boolean _ahead) {
         viewRef = _viewRef;
         params = _currParams;
         discard = _discard;
+        ahead = _ahead;
     }
 
     private void renderLayer(Kdu_region_compositor compositor) throws KduException {
@@ -78,13 +86,15 @@ class J2KRender implements Runnable {
 
         Kdu_dims newRegion = new Kdu_dims();
 
-        int[] intBuffer = null;
-        byte[] byteBuffer = null;
+        ByteBuffer byteBuffer = null;
+        IntBuffer intBuffer = null;
 
+        ByteBuffer pooled;
         if (numComponents < 3) {
-            byteBuffer = new byte[aWidth * aHeight];
+            pooled = byteBuffer = ImageBufferPool.get(aWidth * aHeight);
         } else {
-            intBuffer = new int[aWidth * aHeight];
+            pooled = ImageBufferPool.get(aWidth * aHeight * 4);
+            intBuffer = pooled.asIntBuffer();
         }
 
         int[] localIntBuffer = bufferLocal.get();
@@ -105,18 +115,28 @@ class J2KRender implements Runnable {
             localIntBuffer = newPixels > localIntBuffer.length ? new int[newPixels << 1] : localIntBuffer;
             compositorBuf.Get_region(newRegion, localIntBuffer);
 
-            int srcIdx = 0;
             int dstIdx = newOffset.Get_x() + newOffset.Get_y() * aWidth;
+            // full width regions are contiguous in the destination, copy them in one go
+            int spanWidth = newWidth == aWidth ? newPixels : newWidth;
+            int spanHeight = newWidth == aWidth ? 1 : newHeight;
 
             if (numComponents < 3) {
-                for (int row = 0; row < newHeight; row++, dstIdx += aWidth, srcIdx += newWidth) {
-                    for (int col = 0; col < newWidth; ++col) {
-                        byteBuffer[dstIdx + col] = (byte) (localIntBuffer[srcIdx + col] & 0xFF);
+                byte[] localByteBuffer = byteLocal.get();
+                if (spanWidth > localByteBuffer.length) {
+                    localByteBuffer = new byte[spanWidth];
+                    byteLocal.set(localByteBuffer);
+                }
+                for (int row = 0, srcIdx = 0; row < spanHeight; row++, dstIdx += aWidth, srcIdx += newWidth) {
+                    for (int col = 0; col < spanWidth; ++col) {
+                        localByteBuffer[col] = (byte) localIntBuffer[srcIdx + col];
                     }
+                    byteBuffer.position(dstIdx);
+                    byteBuffer.put(localByteBuffer, 0, spanWidth);
                 }
             } else {
-                for (int row = 0; row < newHeight; row++, dstIdx += aWidth, srcIdx += newWidth) {
-                    System.arraycopy(localIntBuffer, srcIdx, intBuffer, dstIdx, newWidth);
+                for (int row = 0, srcIdx = 0; row < spanHeight; row++, dstIdx += aWidth, srcIdx += newWidth) {
+                    intBuffer.position(dstIdx);
+                    intBuffer.put(localIntBuffer, srcIdx, spanWidth);
                 }
             }
         }
@@ -126,26 +146,52 @@ class J2KRender implements Runnable {
 
         ImageData data;
         if (numComponents < 3) {
-            data = new Single8ImageData(aWidth, aHeight, ByteBuffer.wrap(byteBuffer));
+            byteBuffer.rewind();
+            data = new Single8ImageData(aWidth, aHeight, byteBuffer);
         } else {
-            data = new ARGBInt32ImageData(aWidth, aHeight, IntBuffer.wrap(intBuffer));
+            intBuffer.rewind();
+            data = new ARGBInt32ImageData(aWidth, aHeight, intBuffer);
         }
-        viewRef.setDataFromRender(params, data);
+        data.setPooled(pooled);
+
+        // complete at this level, can be reused
+        if (!discard)
+            viewRef.setDataCache(params, data);
+        if (ahead) {
+            viewRef.doneRenderAhead(params);
+            data.release();
+        } else
+            viewRef.setDataFromRender(params, data); // hands over our reference
     }
 
     @Override
     public void run() {
+        if (ahead && !viewRef.isRenderAheadWanted(params))
+            return;
+
         try {
             KakaduEngine kduEngine = engineLocal.get();
             if (kduEngine == null) {
-                kduEngine = viewRef.getRenderEngine(threadLocal.get());
+                // the threads decoding ahead run side by side, each one decodes without workers
+                Kdu_thread_env threadEnv = null;
+                if (!ahead) {
+                    threadEnv = threadLocal.get();
+                    if (threadEnv == null) {
+                        threadEnv = createThreadEnv();
+                        threadLocal.set(threadEnv);
+                    }
+                }
+                Kdu_cache cache = viewRef.createRenderCache();
+                cacheLocal.set(cache);
+                kduEngine = viewRef.getRenderEngine(cache, threadEnv);
                 engineLocal.set(kduEngine);
             }
             renderLayer(kduEngine.getCompositor());
         } catch (Exception e) {
             // reboot the compositor
-            engineLocal.set(null);
-            threadLocal.remove();
+            releaseThread();
+            if (ahead)
+                viewRef.doneRenderAhead(params);
             e.printStackTrace();
         }
     }
@@ -162,6 +208,33 @@ class J2KRender implements Runnable {
         return dims;
     }
 
+    // releases the native state of the calling thread, the compositor before the cache and the thread env it uses
+    static void releaseThread() {
+        KakaduEngine kduEngine = engineLocal.get();
+        engineLocal.remove();
+        Kdu_cache cache = cacheLocal.get();
+        cacheLocal.remove();
+        Kdu_thread_env threadEnv = threadLocal.get();
+        threadLocal.remove();
+        try {
+            if (kduEngine != null) {
+                kduEngine.destroy();
+                kduEngine.getJpxSource().Close();
+                kduEngine.getFamilySrc().Close();
+            }
+            if (cache != null) {
+                cache.Close();
+                cache.Native_destroy();
+            }
+            if (threadEnv != null) {
+                threadEnv.Destroy();
+                threadEnv.Native_destroy();
+            }
+        } catch (KduException e) {
+            e.printStackTrace();
+        }
+    }
+
     private static Kdu_thread_env createThreadEnv() {
         try {
             Kdu_thread_env theThreadEnv = new Kdu_thread_env();
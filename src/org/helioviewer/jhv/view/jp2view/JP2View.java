@@ -3,6 +3,7 @@ package org.helioviewer.jhv.view.jp2view;
 import java.awt.EventQueue;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import kdu_jni.Jpx_source;
@@ -29,6 +30,7 @@ import org.helioviewer.jhv.view.ViewROI;
 import org.helioviewer.jhv.view.jp2view.cache.CacheStatus;
 import org.helioviewer.jhv.view.jp2view.cache.CacheStatusLocal;
 import org.helioviewer.jhv.view.jp2view.cache.CacheStatusRemote;
+import org.helioviewer.jhv.view.jp2view.cache.JPIPDiskCache;
 import org.helioviewer.jhv.view.jp2view.image.ImageParams;
 import org.helioviewer.jhv.view.jp2view.image.ResolutionSet.ResolutionLevel;
 import org.helioviewer.jhv.view.jp2view.io.jpip.JPIPConstants;
@@ -63,7 +65,7 @@ public class JP2View extends AbstractView {
 
     private J2KReader reader;
     private JHV_Kdu_cache cacheReader;
-    private Kdu_cache cacheRender;
+    private JPIPDiskCache diskCache;
 
     private JPIPSocket socket;
 
@@ -84,10 +86,11 @@ public class JP2View extends AbstractView {
                 case "http":
                 case "jpip":
                     cacheReader = new JHV_Kdu_cache();
-                    cacheRender = new Kdu_cache();
-                    cacheRender.Attach_to(cacheReader);
                     // cache.Set_preferred_memory_limit(60 * 1024 * 1024);
-                    initRemote(cacheReader);
+                    diskCache = new JPIPDiskCache(uri);
+                    boolean restored = diskCache.restore(cacheReader);
+                    cacheReader.setDiskCache(diskCache);
+                    initRemote(cacheReader, restored);
                     break;
                 case "file":
                     // nothing
@@ -107,7 +110,9 @@ public class JP2View extends AbstractView {
             builtinLUT = KakaduHelper.getLUT(jpx);
 
             metaData = new MetaData[maxFrame + 1];
+            long start = System.nanoTime();
             KakaduMeta.cacheMetaData(kduReader.getFamilySrc(), metaData);
+            Log.debug("JP2View > Metadata of " + metaData.length + " frames read in " + (System.nanoTime() - start) / 1000000 + "ms");
             for (int i = 0; i <= maxFrame; i++) {
                 if (metaData[i] == null)
                     metaData[i] = new PixelBasedMetaData(256, 256, i); // tbd real size
@@ -115,6 +120,7 @@ public class JP2View extends AbstractView {
 
             if (cacheReader != null) { // remote
                 cacheStatus = new CacheStatusRemote(kduReader, maxFrame);
+                diskCache.restoreStatus(cacheStatus, maxFrame);
                 reader = new J2KReader(this);
             } else {
                 cacheStatus = new CacheStatusLocal(kduReader, maxFrame);
@@ -125,10 +131,13 @@ public class JP2View extends AbstractView {
         }
     }
 
-    private void initRemote(JHV_Kdu_cache cache) throws JHV_KduException {
+    private void initRemote(JHV_Kdu_cache cache, boolean restored) throws JHV_KduException {
         try {
             // Connect to the JPIP server and add the necessary initial data (the main header as well as the metadata) to cache
             socket = new JPIPSocket(uri, cache);
+            // metadata and first image already available from the disk cache
+            if (restored && cache.isDataBinCompleted(JPIPDatabinClass.MAIN_HEADER_DATABIN, 0, 0))
+                return;
 
             JPIPResponse res;
             String req = JPIPQuery.create(JPIPConstants.META_REQUEST_LEN, "stream", "0", "metareq", "[*]!!");
@@ -185,6 +194,7 @@ public class JP2View extends AbstractView {
 
         new Thread(() -> {
             executor.abolish();
+            DecodeCache.invalidate(this);
             if (reader != null) {
                 reader.abolish();
                 reader = null;
@@ -194,11 +204,11 @@ public class JP2View extends AbstractView {
     }
 
     private void kduDestroy() {
+        if (diskCache != null) {
+            diskCache.close();
+            diskCache = null;
+        }
         try {
-            if (cacheRender != null) {
-                cacheRender.Close();
-                cacheRender.Native_destroy();
-            }
             if (cacheReader != null) {
                 cacheReader.Close();
                 cacheReader.Native_destroy();
@@ -206,7 +216,6 @@ public class JP2View extends AbstractView {
         } catch (KduException e) {
             e.printStackTrace();
         } finally {
-            cacheRender = null;
             cacheReader = null;
         }
     }
@@ -378,9 +387,12 @@ public class JP2View extends AbstractView {
         });
     }
 
+    // takes over a reference to data
     void setDataFromRender(ImageParams params, ImageData data) {
-        if (isAbolished)
+        if (isAbolished) {
+            data.release();
             return;
+        }
 
         int frame = params.frame;
         if (frame != trueFrame) {
@@ -395,13 +407,37 @@ public class JP2View extends AbstractView {
 
         EventQueue.invokeLater(() -> {
             if (dataHandler != null)
-                dataHandler.handleData(data);
+                dataHandler.handleData(data); // handler retains it if kept
+            data.release();
         });
     }
 
-    KakaduEngine getRenderEngine(Kdu_thread_env threadEnv) throws KduException, IOException {
+    void setDataCache(ImageParams params, ImageData data) {
+        if (isAbolished)
+            return;
+        DecodeCache.put(this, params, data);
+    }
+
+    boolean isRenderAheadWanted(ImageParams params) {
+        return !isAbolished && executor.isAheadWanted(params);
+    }
+
+    void doneRenderAhead(ImageParams params) {
+        executor.doneAhead(params);
+    }
+
+    // a kdu_cache keeps the state of its reader, each render thread reads through its own one attached to the cache of the reader
+    Kdu_cache createRenderCache() throws KduException {
+        if (cacheReader == null) // local
+            return null;
+        Kdu_cache cache = new Kdu_cache();
+        cache.Attach_to(cacheReader);
+        return cache;
+    }
+
+    KakaduEngine getRenderEngine(Kdu_cache cache, Kdu_thread_env threadEnv) throws KduException, IOException {
         Thread.currentThread().setName("Render " + getName());
-        KakaduEngine engine = new KakaduEngine(cacheRender, uri);
+        KakaduEngine engine = new KakaduEngine(cache, uri);
         engine.getCompositor().Set_thread_env(threadEnv, null);
         return engine;
     }
@@ -411,8 +447,7 @@ public class JP2View extends AbstractView {
             reader.signalReader(params);
     }
 
-    // Recalculates the image parameters used within the jp2-package
-    ImageParams calculateParams(Camera camera, Viewport vp, int frame, double factor) {
+    private ImageParams buildParams(Camera camera, Viewport vp, int frame, double factor) {
         MetaData m = metaData[frame];
         Region mr = m.getPhysicalRegion();
         Region r = ViewROI.updateROI(camera, vp, m);
@@ -450,13 +485,19 @@ public class JP2View extends AbstractView {
         }
         factor = Math.min(factor, adj);
 
-        int level = res.level;
+        return new ImageParams(camera.getViewpoint(), subImage, res, frame, factor, false);
+    }
+
+    // Recalculates the image parameters used within the jp2-package
+    ImageParams calculateParams(Camera camera, Viewport vp, int frame, double factor) {
+        ImageParams params = buildParams(camera, vp, frame, factor);
+
+        int level = params.resolution.level;
         AtomicBoolean status = cacheStatus.getFrameStatus(frame, level);
         boolean frameLevelComplete = status != null && status.get();
-        boolean priority = !frameLevelComplete && !Layers.isMoviePlaying();
+        params.priority = !frameLevelComplete && !Layers.isMoviePlaying();
 
-        ImageParams params = new ImageParams(camera.getViewpoint(), subImage, res, frame, factor, priority);
-        if (priority || (!frameLevelComplete && level < currentLevel)) {
+        if (params.priority || (!frameLevelComplete && level < currentLevel)) {
             signalReader(params);
         }
         currentLevel = level;
@@ -464,6 +505,42 @@ public class JP2View extends AbstractView {
         return params;
     }
 
+    // Parameters to decode a frame ahead of playback, null if the frame is not complete at the needed level
+    ImageParams calculateAheadParams(Camera camera, Viewport vp, int frame, double factor) {
+        if (frame > cacheStatus.getPartialUntil())
+            return null;
+
+        ImageParams params = buildParams(camera, vp, frame, factor);
+        AtomicBoolean status = cacheStatus.getFrameStatus(frame, params.resolution.level);
+        return status != null && status.get() ? params : null;
+    }
+
+    // The next frames to be played in the current animation mode
+    int[] getAheadFrames(int frame, int num) {
+        num = Math.min(num, maxFrame);
+        int[] frames = new int[num];
+        int dir = Layers.getAnimationMode() == AnimationMode.SwingDown ? -1 : 1;
+
+        int n = 0;
+        while (n < num) {
+            int next = frame + dir;
+            if (next < 0 || next > maxFrame) {
+                switch (Layers.getAnimationMode()) {
+                    case Stop:
+                        return Arrays.copyOf(frames, n);
+                    case Loop:
+                        next = next < 0 ? maxFrame : 0;
+                        break;
+                    default: // Swing, SwingDown
+                        dir = -dir;
+                        next = frame + dir;
+                }
+            }
+            frames[n++] = frame = next;
+        }
+        return frames;
+    }
+
     private int currentLevel = 10000;
 
     @Override
@@ -505,6 +582,10 @@ public class JP2View extends AbstractView {
         return cacheReader;
     }
 
+    JPIPDiskCache getDiskCache() {
+        return diskCache;
+    }
+
     CacheStatus getCacheStatus() {
         return cacheStatus;
     }
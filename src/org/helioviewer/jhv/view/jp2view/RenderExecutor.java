@@ -1,23 +1,55 @@
 package org.helioviewer.jhv.view.jp2view;
 
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.helioviewer.jhv.camera.Camera;
 import org.helioviewer.jhv.display.Viewport;
+import org.helioviewer.jhv.imagedata.ImageData;
+import org.helioviewer.jhv.layers.Layers;
 import org.helioviewer.jhv.threads.JHVThread;
 import org.helioviewer.jhv.view.jp2view.image.ImageParams;
 
 class RenderExecutor {
 
+    // number of frames decoded ahead of the current one during playback
+    private static final int AHEAD_FRAMES = 8;
+    private static final int AHEAD_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 4));
+
     private final ArrayBlockingQueue<Runnable> blockingQueue = new ArrayBlockingQueue<>(1);
     // no need to intercept exceptions
     private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 10000L, TimeUnit.MILLISECONDS, blockingQueue,
-                                                                    new JHVThread.NamedThreadFactory("Render"),
+                                                                    renderThreadFactory("Render"),
                                                                     new ThreadPoolExecutor.DiscardPolicy());
+    // each thread gets its own compositor and cache
+    private final ThreadPoolExecutor aheadExecutor = new ThreadPoolExecutor(AHEAD_THREADS, AHEAD_THREADS, 10000L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                                                                            renderThreadFactory("Render ahead"),
+                                                                            new ThreadPoolExecutor.DiscardPolicy());
+
+    // frames being decoded ahead
+    private final ConcurrentHashMap<Integer, ImageParams> ahead = new ConcurrentHashMap<>();
+
+    RenderExecutor() {
+        aheadExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    // the native decoder state of a render thread is released when the thread exits, e.g., idle or at abolish
+    private static ThreadFactory renderThreadFactory(String name) {
+        ThreadFactory factory = new JHVThread.NamedThreadFactory(name);
+        return r -> factory.newThread(() -> {
+            try {
+                r.run();
+            } finally {
+                J2KRender.releaseThread();
+            }
+        });
+    }
 
     void execute(JP2View view, Camera camera, Viewport vp, int frame, double factor) {
         // order is important, this will signal reader
@@ -26,20 +58,57 @@ class RenderExecutor {
         if (status == null)
             return;
 
-        execute(view, params, !status.get());
+        boolean complete = status.get();
+        ImageData data = complete ? DecodeCache.get(view, params) : null;
+        if (data != null)
+            view.setDataFromRender(params, data); // hands over the reference from the cache
+        else
+            execute(view, params, !complete);
+
+        if (Layers.isMoviePlaying())
+            executeAhead(view, camera, vp, frame, factor);
+        else
+            ahead.clear();
     }
 
     void execute(JP2View view, ImageParams params, boolean discard) {
         blockingQueue.poll();
-        executor.execute(new J2KRender(view, params, discard));
+        executor.execute(new J2KRender(view, params, discard, false));
+    }
+
+    private void executeAhead(JP2View view, Camera camera, Viewport vp, int frame, double factor) {
+        for (int f : view.getAheadFrames(frame, AHEAD_FRAMES)) {
+            ImageParams params = view.calculateAheadParams(camera, vp, f, factor);
+            if (params == null || DecodeCache.contains(view, params))
+                continue;
+
+            ImageParams inFlight = ahead.get(f);
+            if (inFlight != null && inFlight.decodeEquals(params))
+                continue;
+
+            ahead.put(f, params);
+            aheadExecutor.execute(new J2KRender(view, params, false, true));
+        }
+    }
+
+    // stale requests are skipped before decoding
+    boolean isAheadWanted(ImageParams params) {
+        return ahead.get(params.frame) == params;
+    }
+
+    void doneAhead(ImageParams params) {
+        ahead.remove(params.frame, params);
     }
 
     void abolish() {
         try {
+            aheadExecutor.shutdownNow();
             executor.shutdown();
             while (!executor.awaitTermination(1000L, TimeUnit.MILLISECONDS)) ;
+            while (!aheadExecutor.awaitTermination(1000L, TimeUnit.MILLISECONDS)) ;
         } catch (Exception ignore) {
         }
+        ahead.clear();
     }
 
 }
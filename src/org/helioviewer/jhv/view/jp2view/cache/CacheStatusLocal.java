@@ -1,9 +1,11 @@
 package org.helioviewer.jhv.view.jp2view.cache;
 
+import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import kdu_jni.KduException;
 
+import org.helioviewer.jhv.log.Log;
 import org.helioviewer.jhv.view.jp2view.image.ResolutionSet;
 import org.helioviewer.jhv.view.jp2view.kakadu.KakaduEngine;
 import org.helioviewer.jhv.view.jp2view.kakadu.KakaduHelper;
@@ -12,15 +14,27 @@ public class CacheStatusLocal implements CacheStatus {
 
     private static final AtomicBoolean full = new AtomicBoolean(true);
     private final ResolutionSet[] resolutionSet;
+    // frames with the same geometry share the resolution set
+    private final ArrayList<ResolutionSet> distinct = new ArrayList<>();
+    private final KakaduEngine engine;
     private final int maxFrame;
 
-    public CacheStatusLocal(KakaduEngine engine, int _maxFrame) throws KduException {
+    public CacheStatusLocal(KakaduEngine _engine, int _maxFrame) throws KduException {
+        engine = _engine;
         maxFrame = _maxFrame;
         resolutionSet = new ResolutionSet[maxFrame + 1];
-        for (int i = 0; i <= maxFrame; ++i) {
-            resolutionSet[i] = KakaduHelper.getResolutionSet(engine.getCompositor(), i);
-            resolutionSet[i].setComplete(0);
+        resolutionSet[0] = resolve(0); // the other frames are resolved on demand
+    }
+
+    private ResolutionSet resolve(int frame) throws KduException {
+        ResolutionSet res = KakaduHelper.getResolutionSet(engine.getCompositor(), frame);
+        for (ResolutionSet r : distinct) {
+            if (r.sameGeometry(res))
+                return r;
         }
+        res.setComplete(0);
+        distinct.add(res);
+        return res;
     }
 
     @Override
@@ -29,7 +43,15 @@ public class CacheStatusLocal implements CacheStatus {
     }
 
     @Override
-    public ResolutionSet getResolutionSet(int frame) {
+    public synchronized ResolutionSet getResolutionSet(int frame) {
+        if (resolutionSet[frame] == null) {
+            try {
+                resolutionSet[frame] = resolve(frame);
+            } catch (KduException e) {
+                Log.error("CacheStatusLocal.getResolutionSet(" + frame + "): " + e.getMessage());
+                return resolutionSet[0];
+            }
+        }
         return resolutionSet[frame];
     }
 
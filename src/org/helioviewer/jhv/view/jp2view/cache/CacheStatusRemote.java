@@ -84,8 +84,9 @@ public class CacheStatusRemote implements CacheStatus {
         return resolutionSet[frame].getComplete(level);
     }
 
+    // the reader may report from several connections
     @Override
-    public void setFrameComplete(int frame, int level) {
+    public synchronized void setFrameComplete(int frame, int level) {
         if (fullyComplete)
             return;
 
@@ -95,7 +96,7 @@ public class CacheStatusRemote implements CacheStatus {
     }
 
     @Override
-    public void setFramePartial(int frame) {
+    public synchronized void setFramePartial(int frame) {
         if (resolutionSet[frame] == null) {
             try {
                 resolutionSet[frame] = KakaduHelper.getResolutionSet(engine.getCompositor(), frame);
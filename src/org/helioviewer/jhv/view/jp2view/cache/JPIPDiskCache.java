@@ -0,0 +1,377 @@
+package org.helioviewer.jhv.view.jp2view.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.UUID;
+
+import kdu_jni.KduException;
+
+import org.helioviewer.jhv.JHVDirectory;
+import org.helioviewer.jhv.Settings;
+import org.helioviewer.jhv.log.Log;
+import org.helioviewer.jhv.view.jp2view.io.jpip.JPIPDataSegment;
+import org.helioviewer.jhv.view.jp2view.kakadu.JHV_Kdu_cache;
+
+// Persistent store of the JPIP databins received for a target, shared across sessions.
+// The file is an append-only log of databin segments and frame completion records,
+// replayed into a fresh Kakadu cache when the same target is opened again.
+// The views of the same target append through one shared writer; after a write error
+// the file is dropped and not written again for the session.
+public class JPIPDiskCache {
+
+    private static final int MAGIC = 0x4A505043; // JPPC
+    private static final int VERSION = 1;
+
+    private static final byte RECORD_SEGMENT = 0;
+    private static final byte RECORD_COMPLETE = 1;
+
+    private static final int SEGMENT_HEADER = 29; // classID, codestreamID, binID, offset, length, isFinal
+    private static final int COMPLETE_LENGTH = 8; // frame, level
+
+    private static final String EXTENSION = ".jpc";
+    private static final int BUFSIZ = 65536;
+
+    private static final HashMap<File, Writer> writers = new HashMap<>();
+    private static final HashSet<File> failedFiles = new HashSet<>();
+
+    private final File file;
+    private final HashSet<Long> completeFrames = new HashSet<>();
+    private Writer writer;
+    private boolean disabled;
+
+    public JPIPDiskCache(URI uri) {
+        file = new File(JHVDirectory.JPIP_CACHE.getPath() + UUID.nameUUIDFromBytes(uri.toString().getBytes(StandardCharsets.UTF_8)) + EXTENSION);
+    }
+
+    // Populates the cache with the databins stored on disk, returns whether anything was restored;
+    // the log is compacted when a good part of it is redundant, e.g., data resent in later sessions
+    public synchronized boolean restore(JHV_Kdu_cache cache) {
+        if (!file.canRead())
+            return false;
+
+        BitSet redundant = new BitSet();
+        long redundantBytes = 0;
+        boolean truncated = false;
+        boolean restored = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFSIZ))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Unknown cache file format");
+
+            byte[] data = new byte[0];
+            for (int record = 0; ; record++) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                if (type == RECORD_SEGMENT) {
+                    int classID = in.readInt();
+                    long codestreamID = in.readLong();
+                    long binID = in.readLong();
+                    int offset = in.readInt();
+                    int length = in.readInt();
+                    boolean isFinal = in.readBoolean();
+                    if (data.length < length)
+                        data = new byte[length];
+                    in.readFully(data, 0, length);
+
+                    if (cache.isRedundant(classID, codestreamID, binID, offset, length, isFinal)) {
+                        redundant.set(record);
+                        redundantBytes += 1 + SEGMENT_HEADER + length;
+                    } else {
+                        cache.Add_to_databin(classID, codestreamID, binID, data, offset, length, isFinal, true, false);
+                        restored = true;
+                    }
+                } else if (type == RECORD_COMPLETE) {
+                    int frame = in.readInt();
+                    int level = in.readInt();
+                    if (!completeFrames.add((long) frame << 32 | level)) {
+                        redundant.set(record);
+                        redundantBytes += 1 + COMPLETE_LENGTH;
+                    }
+                } else
+                    throw new IOException("Invalid record type " + type);
+            }
+        } catch (EOFException e) {
+            // truncated last record, keep what was read
+            truncated = true;
+        } catch (IOException | KduException e) {
+            Log.warn("JPIPDiskCache.restore() > Discarding " + file + ": " + e.getMessage());
+            completeFrames.clear();
+            // the Kakadu cache may hold data which is not in the file anymore
+            disabled = true;
+            synchronized (writers) {
+                if (!writers.containsKey(file))
+                    file.delete();
+            }
+            return false;
+        }
+
+        // appending after a truncated record would corrupt the log
+        if (truncated || redundantBytes > file.length() / 4)
+            compact(redundant);
+        return restored;
+    }
+
+    // Rewrites the log without the redundant records and without a truncated last record
+    private void compact(BitSet redundant) {
+        synchronized (writers) {
+            if (writers.containsKey(file)) { // in use by another view
+                if (redundant.isEmpty()) // truncated
+                    disabled = true;
+                return;
+            }
+
+            File tmp = new File(file.getPath() + ".tmp");
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFSIZ));
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), BUFSIZ))) {
+                out.writeInt(in.readInt());
+                out.writeInt(in.readInt());
+
+                byte[] header = new byte[SEGMENT_HEADER];
+                byte[] data = new byte[0];
+                for (int record = 0; ; record++) {
+                    byte type;
+                    try {
+                        type = in.readByte();
+                    } catch (EOFException e) {
+                        break;
+                    }
+
+                    int length;
+                    if (type == RECORD_SEGMENT) {
+                        in.readFully(header);
+                        int dataLength = ByteBuffer.wrap(header).getInt(20);
+                        length = SEGMENT_HEADER + dataLength;
+                        if (data.length < length)
+                            data = new byte[length];
+                        System.arraycopy(header, 0, data, 0, SEGMENT_HEADER);
+                        in.readFully(data, SEGMENT_HEADER, dataLength);
+                    } else {
+                        length = COMPLETE_LENGTH;
+                        if (data.length < length)
+                            data = new byte[length];
+                        in.readFully(data, 0, length);
+                    }
+
+                    if (!redundant.get(record)) {
+                        out.writeByte(type);
+                        out.write(data, 0, length);
+                    }
+                }
+            } catch (EOFException e) {
+                // truncated last record dropped
+            } catch (IOException e) {
+                Log.warn("JPIPDiskCache.compact() > Error writing " + tmp + ": " + e.getMessage());
+                tmp.delete();
+                disabled = true;
+                return;
+            }
+
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Log.warn("JPIPDiskCache.compact() > Error moving " + tmp + ": " + e.getMessage());
+                tmp.delete();
+                disabled = true;
+            }
+        }
+    }
+
+    // Marks the frames recorded as complete in the previous sessions
+    public synchronized void restoreStatus(CacheStatus cacheStatus, int maxFrame) {
+        for (long fl : completeFrames) {
+            int frame = (int) (fl >>> 32);
+            if (frame <= maxFrame)
+                cacheStatus.setFrameComplete(frame, (int) fl);
+        }
+        completeFrames.clear();
+    }
+
+    private synchronized Writer getWriter() {
+        if (writer == null && !disabled) {
+            synchronized (writers) {
+                if (failedFiles.contains(file)) {
+                    disabled = true;
+                    return null;
+                }
+
+                Writer w = writers.get(file);
+                if (w == null) {
+                    try {
+                        w = new Writer(file);
+                    } catch (IOException e) {
+                        Log.warn("JPIPDiskCache > Error opening " + file + ": " + e.getMessage());
+                        failedFiles.add(file);
+                        disabled = true;
+                        return null;
+                    }
+                    writers.put(file, w);
+                }
+                w.refs++;
+                writer = w;
+            }
+        }
+        return writer;
+    }
+
+    public void addJPIPDataSegment(JPIPDataSegment seg) {
+        Writer w = getWriter();
+        if (w == null)
+            return;
+
+        synchronized (w) {
+            if (w.failed)
+                return;
+            try {
+                w.out.writeByte(RECORD_SEGMENT);
+                w.out.writeInt(seg.classID.kakaduClassID);
+                w.out.writeLong(seg.codestreamID);
+                w.out.writeLong(seg.binID);
+                w.out.writeInt(seg.offset);
+                w.out.writeInt(seg.length);
+                w.out.writeBoolean(seg.isFinal);
+                if (seg.length > 0)
+                    w.out.write(seg.data, 0, seg.length);
+            } catch (IOException e) {
+                w.fail(e);
+            }
+        }
+    }
+
+    public void setFrameComplete(int frame, int level) {
+        Writer w = getWriter();
+        if (w == null)
+            return;
+
+        synchronized (w) {
+            if (w.failed)
+                return;
+            try {
+                w.out.writeByte(RECORD_COMPLETE);
+                w.out.writeInt(frame);
+                w.out.writeInt(level);
+            } catch (IOException e) {
+                w.fail(e);
+            }
+        }
+    }
+
+    public synchronized void close() {
+        if (writer != null) {
+            boolean last;
+            synchronized (writers) {
+                last = --writer.refs == 0;
+                if (last)
+                    writers.remove(file);
+            }
+            if (last)
+                writer.close();
+            writer = null;
+        }
+        disabled = true;
+        if (file.exists()) {
+            file.setLastModified(System.currentTimeMillis());
+            evict(file);
+        }
+    }
+
+    private static class Writer {
+
+        final File file;
+        final DataOutputStream out;
+        int refs;
+        boolean failed;
+
+        Writer(File _file) throws IOException {
+            file = _file;
+            boolean append = file.length() > 0;
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, append), BUFSIZ));
+            if (!append) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+            }
+        }
+
+        // called with the lock held
+        void fail(IOException e) {
+            Log.warn("JPIPDiskCache > Error writing " + file + ": " + e.getMessage());
+            failed = true;
+            try {
+                out.close();
+            } catch (IOException ignore) {
+            }
+            synchronized (writers) {
+                failedFiles.add(file);
+            }
+            file.delete();
+        }
+
+        synchronized void close() {
+            if (failed)
+                return;
+            try {
+                out.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+    }
+
+    private static long maxSize = -1;
+
+    private static long getMaxSize() {
+        if (maxSize == -1)
+            maxSize = Long.parseLong(Settings.getSingletonInstance().getProperty("cache.jpip.size")) * 1024 * 1024;
+        return maxSize;
+    }
+
+    // Removes the least recently used cache files not in use until the directory fits the size budget
+    private static void evict(File keep) {
+        File[] files = JHVDirectory.JPIP_CACHE.getFile().listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null)
+            return;
+
+        long total = 0;
+        for (File f : files)
+            total += f.length();
+
+        long max = getMaxSize();
+        if (total <= max)
+            return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        synchronized (writers) {
+            for (File f : files) {
+                if (total <= max)
+                    break;
+                if (f.equals(keep) || writers.containsKey(f))
+                    continue;
+                long len = f.length();
+                if (f.delete())
+                    total -= len;
+            }
+        }
+    }
+
+}
@@ -32,6 +32,11 @@ public class ImageParams {
                viewpoint.equals(p.viewpoint) && subImage.equals(p.subImage) && resolution.equals(p.resolution);
     }
 
+    // same decoded pixels, regardless of viewpoint
+    public boolean decodeEquals(ImageParams p) {
+        return frame == p.frame && factor == p.factor && subImage.equals(p.subImage) && resolution.equals(p.resolution);
+    }
+
     @Override
     public int hashCode() {
         assert false : "hashCode not designed";
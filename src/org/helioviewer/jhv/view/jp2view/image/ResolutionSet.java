@@ -34,6 +34,16 @@ public class ResolutionSet {
         resolutions[discardLayer] = new ResolutionLevel(discardLayer, width, height, scaleX, scaleY);
     }
 
+    public boolean sameGeometry(ResolutionSet r) {
+        if (numLevels != r.numLevels || numComps != r.numComps)
+            return false;
+        for (int i = 0; i < numLevels; i++) {
+            if (!resolutions[i].equals(r.resolutions[i]))
+                return false;
+        }
+        return true;
+    }
+
     public ResolutionLevel getResolutionLevel(int idx) {
         return resolutions[idx];
     }
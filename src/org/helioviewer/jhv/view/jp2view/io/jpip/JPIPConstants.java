@@ -100,4 +100,9 @@ public class JPIPConstants {
      */
     public static final int MAX_REQ_LAYERS = 15;
 
+    /**
+     * Number of connections used in parallel to fetch layer ranges.
+     */
+    public static final int MAX_READER_SOCKETS = 3;
+
 }
@@ -31,7 +31,7 @@ public class JPIPDataSegment {
     // Length of this segment
     public int length;
 
-    // The segment data
+    // The segment data, only the first length bytes are valid as the buffer is reused across segments
     public byte data[];
 
     // Indicates if this segment is the last one (when there is a data segment stream)
@@ -4,6 +4,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.ProtocolException;
+import java.nio.ByteBuffer;
 
 /**
  * A response to a JPIPRequest, encapsulates the JPIPDataSegments
@@ -48,6 +49,47 @@ public class JPIPResponse {
     /** The first byte of the last VBAS read. */
     private int vbasFstByte = 0;
 
+    private static final int WINDOW_SIZE = 64 * 1024;
+
+    // The read window and the segment are reused across responses of the same reader thread
+    private static final ThreadLocal<ByteBuffer> windowLocal = ThreadLocal.withInitial(() -> ByteBuffer.allocate(WINDOW_SIZE));
+    private static final ThreadLocal<JPIPDataSegment> segmentLocal = ThreadLocal.withInitial(JPIPDataSegment::new);
+
+    private InputStream in;
+    private ByteBuffer window;
+
+    /** Refills the read window, returns false on EOF. */
+    private boolean fill() throws IOException {
+        window.clear();
+        int read;
+        while ((read = in.read(window.array(), 0, window.capacity())) == 0) ;
+        if (read < 0) {
+            window.limit(0);
+            return false;
+        }
+        window.limit(read);
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (!window.hasRemaining() && !fill())
+            return -1;
+        return window.get() & 0xFF;
+    }
+
+    private void readFully(byte[] dst, int len) throws IOException {
+        int offset = Math.min(len, window.remaining());
+        window.get(dst, 0, offset);
+
+        // bypass the window for the rest of the segment
+        while (offset != len) {
+            int read = in.read(dst, offset, len - offset);
+            if (read == -1)
+                throw new EOFException("Unexpected EOF");
+            offset += read;
+        }
+    }
+
     /**
      * Reads an VBAS integer from the stream. The length in bytes of the VBAS is
      * stored in the <code>vbasLength</code>variable, and the first byte of the
@@ -55,7 +97,7 @@ public class JPIPResponse {
      * 
      * @throws IOException
      */
-    private long readVBAS(InputStream in) throws IOException {
+    private long readVBAS() throws IOException {
         vbasLength = 0;
         long value = 0;
         int c;
@@ -63,7 +105,7 @@ public class JPIPResponse {
             if (vbasLength >= 9)
                 throw new ProtocolException("VBAS length not supported");
 
-            if ((c = in.read()) < 0) {
+            if ((c = read()) < 0) {
                 if (vbasLength > 0)
                     throw new EOFException("EOF reached before completing VBAS");
                 else
@@ -86,21 +128,25 @@ public class JPIPResponse {
      * buffer is not reallocated every time. It is only reallocated if the next
      * data length is bigger than the previous one.
      */
-    private JPIPDataSegment readSegment(InputStream in) throws IOException {
+    private boolean readSegment(JPIPDataSegment seg) throws IOException {
         long id;
-        if ((id = readVBAS(in)) < 0)
-            return null;
+        if ((id = readVBAS()) < 0)
+            return false;
 
-        JPIPDataSegment seg = new JPIPDataSegment();
         seg.binID = id;
+        seg.aux = 0;
+        seg.classID = null;
+        seg.codestreamID = 0;
+        seg.offset = 0;
+        seg.isFinal = false;
 
         if (vbasFstByte == 0) {
             seg.isEOR = true;
 
-            if ((seg.binID = in.read()) < 0)
+            if ((seg.binID = read()) < 0)
                 throw new EOFException("EOF reached before completing EOR message");
 
-            seg.length = (int) readVBAS(in);
+            seg.length = (int) readVBAS();
         } else {
             seg.isEOR = false;
             seg.binID &= ~(0x70L << ((vbasLength - 1) * 7));
@@ -110,9 +156,9 @@ public class JPIPResponse {
             if (m == 0)
                 throw new ProtocolException("Invalid Bin-ID value format");
             if (m >= 2) {
-                classId = readVBAS(in);
+                classId = readVBAS();
                 if (m > 2)
-                    codestream = readVBAS(in);
+                    codestream = readVBAS();
             }
             seg.codestreamID = codestream;
 
@@ -124,37 +170,38 @@ public class JPIPResponse {
             if (seg.classID == null)
                 throw new ProtocolException("Invalid databin classID");
 
-            seg.offset = (int) readVBAS(in);
-            seg.length = (int) readVBAS(in);
+            seg.offset = (int) readVBAS();
+            seg.length = (int) readVBAS();
 
             if (classId == JPIPConstants.EXTENDED_PRECINCT_DATA_BIN_CLASS || classId == JPIPConstants.EXTENDED_TILE_DATA_BIN_CLASS)
-                seg.aux = readVBAS(in);
+                seg.aux = readVBAS();
         }
 
         if (seg.length > 0) {
-            seg.data = new byte[seg.length];
-
-            int offset = 0;
-            int len = seg.length;
-            while (len != 0) {
-                int read = in.read(seg.data, offset, len);
-                if (read == -1)
-                    throw new EOFException("Unexpected EOF");
-                len -= read;
-                offset += read;
-            }
+            if (seg.data == null || seg.data.length < seg.length)
+                seg.data = new byte[seg.length];
+            readFully(seg.data, seg.length);
         }
 
-        return seg;
+        return true;
     }
 
-    public void readSegments(InputStream in, JPIPCache cache) throws IOException {
-        JPIPDataSegment seg;
-        while ((seg = readSegment(in)) != null) {
-            if (seg.isEOR)
-                status = seg.binID;
-            else
-                cache.addJPIPDataSegment(seg);
+    public void readSegments(InputStream _in, JPIPCache cache) throws IOException {
+        in = _in;
+        window = windowLocal.get();
+        window.limit(0);
+
+        JPIPDataSegment seg = segmentLocal.get();
+        try {
+            while (readSegment(seg)) {
+                if (seg.isEOR)
+                    status = seg.binID;
+                else
+                    cache.addJPIPDataSegment(seg);
+            }
+        } finally {
+            in = null;
+            window = null;
         }
     }
 
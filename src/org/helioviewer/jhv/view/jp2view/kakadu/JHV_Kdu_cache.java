@@ -5,12 +5,19 @@ import java.io.IOException;
 import kdu_jni.KduException;
 import kdu_jni.Kdu_cache;
 
+import org.helioviewer.jhv.view.jp2view.cache.JPIPDiskCache;
 import org.helioviewer.jhv.view.jp2view.io.jpip.JPIPCache;
 import org.helioviewer.jhv.view.jp2view.io.jpip.JPIPDataSegment;
 import org.helioviewer.jhv.view.jp2view.io.jpip.JPIPDatabinClass;
 
 public class JHV_Kdu_cache extends Kdu_cache implements JPIPCache {
 
+    private JPIPDiskCache diskCache;
+
+    public void setDiskCache(JPIPDiskCache _diskCache) {
+        diskCache = _diskCache;
+    }
+
     public boolean isDataBinCompleted(JPIPDatabinClass binClass, int streamID, int binID) throws JHV_KduException {
         boolean complete[] = new boolean[1];
         try {
@@ -21,13 +28,24 @@ public class JHV_Kdu_cache extends Kdu_cache implements JPIPCache {
         return complete[0];
     }
 
+    // whether the segment adds nothing to the databin, e.g., resent data already restored from the disk cache
+    public boolean isRedundant(int classID, long codestreamID, long binID, int offset, int length, boolean isFinal) throws KduException {
+        boolean complete[] = new boolean[1];
+        int available = Get_databin_length(classID, codestreamID, binID, complete);
+        return complete[0] || (!isFinal && offset + length <= available);
+    }
+
     @Override
     public void addJPIPDataSegment(JPIPDataSegment data) throws IOException {
+        boolean store;
         try {
+            store = diskCache != null && !isRedundant(data.classID.kakaduClassID, data.codestreamID, data.binID, data.offset, data.length, data.isFinal);
             Add_to_databin(data.classID.kakaduClassID, data.codestreamID, data.binID, data.data, data.offset, data.length, data.isFinal, true, false);
         } catch (KduException e) {
             throw new IOException("Internal Kakadu error: " + e.getMessage(), e);
         }
+        if (store)
+            diskCache.addJPIPDataSegment(data);
     }
 
 }
@@ -16,6 +16,7 @@ public class KakaduEngine {
     private final Jp2_threadsafe_family_src familySrc = new Jp2_threadsafe_family_src();
     private final Jpx_source jpxSrc;
     private final Kdu_region_compositor compositor;
+    private boolean destroyed;
 
     public KakaduEngine(Kdu_cache cache, URI uri) throws KduException, IOException {
         if (cache == null) { // local
@@ -42,10 +43,17 @@ public class KakaduEngine {
         return compositor;
     }
 
+    public synchronized void destroy() throws KduException {
+        if (!destroyed) {
+            destroyed = true;
+            destroyCompositor(compositor);
+        }
+    }
+
     @Override
     protected void finalize() throws Throwable {
         try {
-            destroyCompositor(compositor);
+            destroy();
         } catch (KduException e) {
             e.printStackTrace();
         } finally {
@@ -1,6 +1,8 @@
 package org.helioviewer.jhv.view.jp2view.kakadu;
 
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
 
 import kdu_jni.Jp2_input_box;
 import kdu_jni.Jp2_family_src;
@@ -224,7 +226,8 @@ public class KakaduMeta {
     }
 
     public static void cacheMetaData(Jp2_family_src src, MetaData[] metaDataList) throws Exception {
-        XMLMetaDataContainer hvMetaData = new XMLMetaDataContainer();
+        // box access is sequential, the parsing can run in parallel
+        String[] xmls = new String[metaDataList.length];
 
         Jp2_input_box xmlBox = new Jp2_input_box();
         Jp2_input_box[] findBoxResult = findBox(src, Kdu_global.jp2_association_4cc, 1);
@@ -232,11 +235,8 @@ public class KakaduMeta {
         if (assocBox != null) {
             for (int i = 0; i < metaDataList.length; i++) {
                 try {
-                    if (myFindBox2(xmlBox, assocBox, Kdu_global.jp2_xml_4cc, 1)) {
-                        hvMetaData.parseXML(xmlBox2xml(xmlBox));
-                        metaDataList[i] = new HelioviewerMetaData(hvMetaData, i);
-                        hvMetaData.destroyXML();
-                    }
+                    if (myFindBox2(xmlBox, assocBox, Kdu_global.jp2_xml_4cc, 1))
+                        xmls[i] = xmlBox2xml(xmlBox);
 
                     xmlBox.Close();
                     assocBox.Close();
@@ -248,11 +248,8 @@ public class KakaduMeta {
         } else { // JP2
             findBoxResult = findBox(src, Kdu_global.jp2_xml_4cc, 1);
             xmlBox = findBoxResult[0];
-            if (xmlBox != null) {
-                hvMetaData.parseXML(xmlBox2xml(xmlBox));
-                metaDataList[0] = new HelioviewerMetaData(hvMetaData, 0);
-                hvMetaData.destroyXML();
-            }
+            if (xmlBox != null)
+                xmls[0] = xmlBox2xml(xmlBox);
         }
 
         if (xmlBox != null) {
@@ -264,6 +261,20 @@ public class KakaduMeta {
         if (findBoxResult[0] != null) {
             findBoxResult[0].Native_destroy();
         }
+
+        try {
+            IntStream.range(0, xmls.length).parallel().filter(i -> xmls[i] != null).forEach(i -> {
+                try {
+                    XMLMetaDataContainer hvMetaData = new XMLMetaDataContainer();
+                    hvMetaData.parseXML(xmls[i]);
+                    metaDataList[i] = new HelioviewerMetaData(hvMetaData, i);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            });
+        } catch (CompletionException e) {
+            throw (Exception) e.getCause();
+        }
     }
 
 /*